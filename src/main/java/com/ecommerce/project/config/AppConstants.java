@@ -6,4 +6,7 @@ public class AppConstants {
     public static final String SORT_CATEGORIES_BY = "categoryId";
     public static final String SORT_DIR = "asc";
     public static final String SORT_PRODUCTS_BY = "productId";
+    public static final String ORDER_STATUS_PENDING = "Order Pending";
+    public static final String ORDER_STATUS_ACCEPTED = "Order Accepted !";
+    public static final String ORDER_STATUS_FAILED = "Order Failed";
 }
@@ -0,0 +1,113 @@
+package com.ecommerce.project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/*
+  spring.threads.virtual.enabled=true (Java 21+) runs Tomcat's request threads, the @Scheduled pollers and the
+  JDBC-bound executors below on virtual threads. The executors keep their pool and queue bounds either way: with
+  virtual threads the limit on concurrent database work is the connection pool, not the number of threads.
+  That pool is then sized by project.datasource.virtual-threads.*; with platform threads Hikari's settings apply.
+*/
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    private final boolean virtualThreads;
+
+    public AsyncConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (!virtualThreads && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            logger.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads, using platform threads",
+                    Runtime.version().feature());
+        }
+    }
+
+    // Every virtual request thread can wait for a connection at once, so the pool gets an explicit size and a short
+    // timeout: a request fails fast instead of queueing for Hikari's default 30s
+    @Bean
+    static BeanPostProcessor virtualThreadConnectionPool(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource && Threading.VIRTUAL.isActive(environment)) {
+                    dataSource.setMaximumPoolSize(environment.getProperty(
+                            "project.datasource.virtual-threads.maximum-pool-size", Integer.class, 20));
+                    dataSource.setConnectionTimeout(environment.getProperty(
+                            "project.datasource.virtual-threads.connection-timeout-ms", Long.class, 5000L));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Bounded in both threads and queue: the outbox poller stops handing out work when it is full
+    @Bean
+    public ThreadPoolTaskExecutor orderTaskExecutor(@Value("${project.order.workers:4}") int workers,
+                                                    @Value("${project.order.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-worker-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // Imports are long and few: a small pool, and a short queue so a burst is refused instead of piling up
+    @Bean
+    public ThreadPoolTaskExecutor productImportExecutor(@Value("${project.product-import.workers:2}") int workers,
+                                                        @Value("${project.product-import.queue-capacity:8}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("product-import-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // Cart repricing after a product update with a large fan-out. One worker: the statements of two updates of the
+    // same product never interleave
+    @Bean
+    public ThreadPoolTaskExecutor cartRepriceExecutor(@Value("${project.cart.reprice.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cart-reprice-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.setVirtualThreads(virtualThreads);
+        return executor;
+    }
+
+    // Resizing is CPU bound: one thread per core at most, uploads beyond the queue keep only their original.
+    // Always platform threads, a virtual thread gains nothing when it never blocks.
+    @Bean
+    public ThreadPoolTaskExecutor imageTaskExecutor(@Value("${project.image.workers:2}") int workers,
+                                                    @Value("${project.image.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
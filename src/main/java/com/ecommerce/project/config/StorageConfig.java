@@ -0,0 +1,63 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.storage.LocalFileCache;
+import com.ecommerce.project.storage.LocalObjectStorage;
+import com.ecommerce.project.storage.ObjectStorage;
+import com.ecommerce.project.storage.S3ObjectStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+
+// project.storage.type picks where images live: "local" (project.image folder, the default) or "s3"
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "project.storage.type", havingValue = "local", matchIfMissing = true)
+    public ObjectStorage localObjectStorage(@Value("${project.image}") String path) {
+        return new LocalObjectStorage(Paths.get(path));
+    }
+
+    // endpoint and path-style are for S3-compatible servers (MinIO, LocalStack); leave both unset for AWS itself
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "project.storage.type", havingValue = "s3")
+    public S3Client s3Client(@Value("${project.storage.s3.region:us-east-1}") String region,
+                             @Value("${project.storage.s3.endpoint:}") String endpoint,
+                             @Value("${project.storage.s3.path-style:false}") boolean pathStyle,
+                             @Value("${project.storage.s3.access-key:}") String accessKey,
+                             @Value("${project.storage.s3.secret-key:}") String secretKey) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+        if (StringUtils.hasText(endpoint)) builder.endpointOverride(URI.create(endpoint));
+        builder.credentialsProvider(StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.builder().build());
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "project.storage.type", havingValue = "s3")
+    public ObjectStorage s3ObjectStorage(S3Client s3Client,
+                                         @Value("${project.storage.s3.bucket}") String bucket,
+                                         @Value("${project.storage.s3.part-size:8MB}") DataSize partSize,
+                                         @Value("${project.storage.cache.dir:image-cache/}") String cacheDir,
+                                         @Value("${project.storage.cache.max-bytes:1GB}") DataSize cacheMaxBytes,
+                                         @Value("${project.storage.cache.miss-ttl-ms:5000}") long missTtlMs) throws IOException {
+        return new S3ObjectStorage(s3Client, bucket, (int) partSize.toBytes(),
+                new LocalFileCache(Paths.get(cacheDir), cacheMaxBytes.toBytes()), missTtlMs);
+    }
+}
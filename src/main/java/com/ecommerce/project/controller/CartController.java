@@ -1,11 +1,9 @@
 package com.ecommerce.project.controller;
 
-import com.ecommerce.project.exceptions.APIException;
-import com.ecommerce.project.exceptions.ResourceNotFoundException;
-import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.payload.CartDTO;
-import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.payload.CartRepriceResultDTO;
 import com.ecommerce.project.service.CartService;
+import com.ecommerce.project.service.IdempotencyStore;
 import com.ecommerce.project.util.AuthUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -25,12 +23,15 @@ public class CartController {
     private AuthUtil authUtil;
 
     @Autowired
-    private CartRepository cartRepository;
+    private IdempotencyStore idempotencyStore;
 
     @PostMapping("/carts/products/{productId}/quantity/{quantity}")
-    public ResponseEntity<CartDTO> addProductToCart(@PathVariable Long productId, @PathVariable Integer quantity){
-        CartDTO cartDTO = cartService.addProductToCart(productId,quantity);
-        return new ResponseEntity<>(cartDTO, HttpStatus.CREATED);
+    public ResponseEntity<CartDTO> addProductToCart(@PathVariable Long productId, @PathVariable Integer quantity,
+                                                    @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey){
+        return idempotencyStore.execute(idempotencyKey, authUtil.loggedInUserId(), "add-to-cart", productId + ":" + quantity, () -> {
+            CartDTO cartDTO = cartService.addProductToCart(productId,quantity);
+            return new ResponseEntity<>(cartDTO, HttpStatus.CREATED);
+        });
     }
 
     @GetMapping("/carts")
@@ -41,11 +42,7 @@ public class CartController {
 
     @GetMapping("/carts/users/cart")
     public ResponseEntity<CartDTO> getCartById(){
-        String emailId = authUtil.loggedInEmail();
-        Cart cart =cartRepository.findCartByEmail(emailId);
-        if(cart == null)throw new ResourceNotFoundException("Cart","emailId",emailId);
-
-       CartDTO cartDTO = cartService.getCart(emailId,cart.getCartId());
+       CartDTO cartDTO = cartService.getUserCart(authUtil.loggedInUserId());
        return ResponseEntity.ok(cartDTO);
     }
 
@@ -63,4 +60,9 @@ public class CartController {
          String status = cartService.deleteProductFromCart(cartId,productId);
          return new ResponseEntity<>(status,HttpStatus.OK);
     }
+
+    @PostMapping("/admin/carts/reprice")
+    public ResponseEntity<CartRepriceResultDTO> repriceAllCarts(){
+        return new ResponseEntity<>(cartService.repriceAllCarts(), HttpStatus.OK);
+    }
 }
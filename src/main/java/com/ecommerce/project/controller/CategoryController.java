@@ -34,6 +34,18 @@ public class CategoryController {
         return new ResponseEntity<>(categoryResponse, HttpStatus.OK);
     }
 
+    // Cursor mode: pass back nextCursor as "after" to get the following page, no totals are computed
+    @GetMapping("/public/categories/scroll")
+    public ResponseEntity<CategoryResponse> getCategoriesAfter(
+            @RequestParam(name="after",required = false) String after,
+            @RequestParam(name="pageSize",defaultValue = AppConstants.PAGE_SIZE,required = false) Integer pageSize,
+            @RequestParam(name="sortBy",defaultValue = AppConstants.SORT_CATEGORIES_BY,required=false) String sortBy,
+            @RequestParam(name="sortOrder",defaultValue = AppConstants.SORT_DIR,required = false ) String sortOrder
+    ) {
+        CategoryResponse categoryResponse = categoryService.getCategoriesAfter(after,pageSize,sortBy,sortOrder);
+        return new ResponseEntity<>(categoryResponse, HttpStatus.OK);
+    }
+
     @PostMapping("/public/categories")
     public ResponseEntity<CategoryDTO> createCategory(@Valid @RequestBody CategoryDTO categoryDTO){
         CategoryDTO savedCategoryDTO = categoryService.createCategory(categoryDTO);
@@ -1,7 +1,10 @@
 package com.ecommerce.project.controller;
 
 import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderPipelineStatsDTO;
 import com.ecommerce.project.payload.OrderRequestDTO;
+import com.ecommerce.project.security.services.UserDetailsImpl;
+import com.ecommerce.project.service.IdempotencyStore;
 import com.ecommerce.project.service.OrderService;
 import com.ecommerce.project.util.AuthUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,19 +22,33 @@ public class OrderController {
     @Autowired
     private AuthUtil authUtil;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     @PostMapping("/order/users/payments/{paymentMethod}")
-    public ResponseEntity<OrderDTO> orderProducts(@PathVariable String paymentMethod, @RequestBody OrderRequestDTO orderRequestDTO){
-        String emailId = authUtil.loggedInEmail();
-        OrderDTO order = orderService.placeOrder(
-                emailId,
-                orderRequestDTO.getAddressId(),
-                paymentMethod,
-                orderRequestDTO.getPgName(),
-                orderRequestDTO.getPgPaymentId(),
-                orderRequestDTO.getPgStatus(),
-                orderRequestDTO.getPgResponseMessage()
-        );
+    public ResponseEntity<OrderDTO> orderProducts(@PathVariable String paymentMethod, @RequestBody OrderRequestDTO orderRequestDTO,
+                                                  @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey){
+        UserDetailsImpl user = authUtil.loggedInPrincipal();
+        String fingerprint = String.join(":", paymentMethod, String.valueOf(orderRequestDTO.getAddressId()),
+                orderRequestDTO.getPgName(), orderRequestDTO.getPgPaymentId(),
+                orderRequestDTO.getPgStatus(), orderRequestDTO.getPgResponseMessage());
+        return idempotencyStore.execute(idempotencyKey, user.getId(), "checkout", fingerprint, () -> {
+            OrderDTO order = orderService.placeOrder(
+                    user.getEmail(),
+                    orderRequestDTO.getAddressId(),
+                    paymentMethod,
+                    orderRequestDTO.getPgName(),
+                    orderRequestDTO.getPgPaymentId(),
+                    orderRequestDTO.getPgStatus(),
+                    orderRequestDTO.getPgResponseMessage()
+            );
+
+            return new ResponseEntity<>(order, HttpStatus.CREATED);
+        });
+    }
 
-        return new ResponseEntity<>(order, HttpStatus.CREATED);
+    @GetMapping("/admin/orders/pipeline/stats")
+    public ResponseEntity<OrderPipelineStatsDTO> getOrderPipelineStats(){
+        return new ResponseEntity<>(orderService.getPipelineStats(), HttpStatus.OK);
     }
 }
@@ -2,13 +2,20 @@ package com.ecommerce.project.controller;
 
 import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CacheStatsDTO;
 import com.ecommerce.project.payload.CategoryDTO;
 import com.ecommerce.project.payload.CategoryResponse;
 import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductImportJobDTO;
 import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.service.ProductCatalogCache;
+import com.ecommerce.project.service.ProductExportService;
+import com.ecommerce.project.service.ProductImportService;
 import com.ecommerce.project.service.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,12 +30,47 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
     @PostMapping("/admin/categories/{categoryId}/product")
     public ResponseEntity<ProductDTO> addProduct(@Valid @RequestBody ProductDTO productDTO, @PathVariable Long categoryId){
        ProductDTO savedProductDTO=productService.addProduct(categoryId,productDTO);
        return new ResponseEntity<>(savedProductDTO, HttpStatus.CREATED);
     }
 
+    // CSV (with a header row) or NDJSON; format defaults from the file extension. Poll the returned jobId for progress.
+    @PostMapping("/admin/products/import")
+    public ResponseEntity<ProductImportJobDTO> importProducts(@RequestParam("file") MultipartFile file,
+                                                              @RequestParam(name="format",required = false) String format) throws IOException {
+        ProductImportJobDTO importJobDTO = productImportService.startImport(file,format);
+        return new ResponseEntity<>(importJobDTO,HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/admin/products/import/{jobId}")
+    public ResponseEntity<ProductImportJobDTO> getImportJob(@PathVariable String jobId){
+        return new ResponseEntity<>(productImportService.getImportJob(jobId),HttpStatus.OK);
+    }
+
+    // Whole catalog (or one category) as NDJSON or CSV, streamed to the client as it is read. Written on the request
+    // thread: a StreamingResponseBody runs as an async request, cut off by the MVC async timeout on a large catalog.
+    @GetMapping("/admin/products/export")
+    public void exportProducts(@RequestParam(name="format",defaultValue = "ndjson",required = false) String format,
+                               @RequestParam(name="categoryId",required = false) Long categoryId,
+                               HttpServletResponse response) throws IOException {
+        String resolvedFormat = productExportService.checkExport(categoryId,format);
+        boolean csv = "csv".equals(resolvedFormat);
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename=products." + resolvedFormat);
+        productExportService.exportProducts(categoryId,resolvedFormat,response.getOutputStream());
+    }
+
     @GetMapping("/public/products")
     public ResponseEntity<ProductResponse> getAllProducts(
             @RequestParam(name="pageNumber",defaultValue = AppConstants.PAGE_NUMBER,required = false) Integer pageNumber,
@@ -40,6 +82,28 @@ public class ProductController {
         return new ResponseEntity<>(productResponse,HttpStatus.OK);
     }
 
+    // Cursor mode: pass back nextCursor as "after" to get the following page, no totals are computed
+    @GetMapping("/public/products/scroll")
+    public ResponseEntity<ProductResponse> getProductsAfter(
+            @RequestParam(name="after",required = false) String after,
+            @RequestParam(name="pageSize",defaultValue = AppConstants.PAGE_SIZE,required = false) Integer pageSize,
+            @RequestParam(name="sortBy",defaultValue = AppConstants.SORT_PRODUCTS_BY,required=false) String sortBy,
+            @RequestParam(name="sortOrder",defaultValue = AppConstants.SORT_DIR,required = false ) String sortOrder
+    ){
+        ProductResponse productResponse = productService.getProductsAfter(after,pageSize,sortBy,sortOrder);
+        return new ResponseEntity<>(productResponse,HttpStatus.OK);
+    }
+
+    @GetMapping("/public/categories/{categoryId}/products/scroll")
+    public ResponseEntity<ProductResponse> getProductsByCategoryAfter(@PathVariable Long categoryId,
+                                                                      @RequestParam(name="after",required = false) String after,
+                                                                      @RequestParam(name="pageSize",defaultValue = AppConstants.PAGE_SIZE,required = false) Integer pageSize,
+                                                                      @RequestParam(name="sortBy",defaultValue = AppConstants.SORT_PRODUCTS_BY,required=false) String sortBy,
+                                                                      @RequestParam(name="sortOrder",defaultValue = AppConstants.SORT_DIR,required = false ) String sortOrder){
+        ProductResponse productResponse = productService.getProductsByCategoryAfter(categoryId,after,pageSize,sortBy,sortOrder);
+        return new ResponseEntity<>(productResponse,HttpStatus.OK);
+    }
+
     @GetMapping("/public/categories/{categoryId}/products")
     public ResponseEntity<ProductResponse> getProductsByCategory(@PathVariable Long categoryId,
                                                                  @RequestParam(name="pageNumber",defaultValue = AppConstants.PAGE_NUMBER,required = false) Integer pageNumber,
@@ -78,4 +142,9 @@ public class ProductController {
         ProductDTO productDTO = productService.updateProductImage(productId,image);
         return new ResponseEntity<>(productDTO,HttpStatus.OK);
     }
+
+    @GetMapping("/admin/products/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getProductCacheStats(){
+        return new ResponseEntity<>(productCatalogCache.stats(),HttpStatus.OK);
+    }
 }
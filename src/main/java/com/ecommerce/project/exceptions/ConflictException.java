@@ -0,0 +1,13 @@
+package com.ecommerce.project.exceptions;
+
+// The request clashes with one still being processed; the client can send it again later
+public class ConflictException extends RuntimeException{
+    private static final long serialVersionUID=1L;
+
+    public ConflictException() {
+    }
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -37,4 +37,10 @@ public class MyGlobalExceptionHandler {
         APIResponse apiResponse = new APIResponse(e.getMessage(),false);
         return new ResponseEntity<>(apiResponse,HttpStatus.BAD_REQUEST);
    }
+
+   @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<APIResponse> myConflictException(ConflictException e){
+        APIResponse apiResponse = new APIResponse(e.getMessage(),false);
+        return new ResponseEntity<>(apiResponse,HttpStatus.CONFLICT);
+   }
 }
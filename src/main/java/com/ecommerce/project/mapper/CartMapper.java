@@ -0,0 +1,48 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.CartItemDTO;
+import com.ecommerce.project.payload.CartLineView;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.util.Money;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring", uses = ProductMapper.class)
+public interface CartMapper {
+
+    @Mapping(target = "products", source = "cartItems")
+    CartDTO toCartDTO(Cart cart);
+
+    // A cart line is shown as its product, carrying the quantity held in the cart
+    @Mapping(target = "productId", source = "product.productId")
+    @Mapping(target = "productName", source = "product.productName")
+    @Mapping(target = "image", source = "product.image")
+    @Mapping(target = "description", source = "product.description")
+    @Mapping(target = "quantity", source = "quantity")
+    @Mapping(target = "price", source = "product.price")
+    @Mapping(target = "discount", source = "product.discount")
+    @Mapping(target = "specialPrice", source = "product.specialPrice")
+    @Mapping(target = "imageVariants", ignore = true)
+    ProductDTO toCartProductDTO(CartItem cartItem);
+
+    @Mapping(target = "productDTO", source = "product")
+    CartItemDTO toCartItemDTO(CartItem cartItem);
+
+    // Rows of CartRepository.findCartViewByUserId, all belonging to one cart
+    default CartDTO toCartDTO(List<CartLineView> lines) {
+        CartDTO cartDTO = new CartDTO();
+        cartDTO.setCartId(lines.get(0).getCartId());
+        cartDTO.setTotalPrice(Money.toMajor(lines.get(0).getTotalPriceMinor()));
+        for (CartLineView line : lines) {
+            if (line.getProductId() == null) continue;
+            cartDTO.getProducts().add(new ProductDTO(line.getProductId(), line.getProductName(), line.getImage(),
+                    line.getDescription(), line.getQuantity(), line.getPrice(), line.getDiscount(), line.getSpecialPrice()));
+        }
+        return cartDTO;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.PaymentDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring", uses = ProductMapper.class)
+public interface OrderMapper {
+
+    @Mapping(target = "addressId", source = "address.addressId")
+    OrderDTO toOrderDTO(Order order);
+
+    OrderItemDTO toOrderItemDTO(OrderItem orderItem);
+
+    List<OrderItemDTO> toOrderItemDTOs(List<OrderItem> orderItems);
+
+    PaymentDTO toPaymentDTO(Payment payment);
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductSummary;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ProductMapper {
+
+    @Mapping(target = "imageVariants", ignore = true)
+    ProductDTO toProductDTO(Product product);
+
+    List<ProductDTO> toProductDTOs(List<Product> products);
+
+    @Mapping(target = "imageVariants", ignore = true)
+    ProductDTO toProductDTO(ProductSummary product);
+
+    List<ProductDTO> summariesToProductDTOs(List<ProductSummary> products);
+
+    @Mapping(target = "category", ignore = true)
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "products", ignore = true)
+    @Mapping(target = "deleted", ignore = true)
+    Product toProduct(ProductDTO productDTO);
+}
@@ -1,8 +1,10 @@
 package com.ecommerce.project.model;
 
+import com.ecommerce.project.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
@@ -20,13 +22,30 @@ public class Cart {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long cartId;
 
-    @OneToOne
-    @JoinColumn(name="user_id")
+    // Lazy: carts are looked up by user id, the user row itself is rarely needed. One cart per user.
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name="user_id", unique = true)
     private User user;
 
     @ToString.Exclude
     @OneToMany(mappedBy = "cart",cascade = {CascadeType.PERSIST,CascadeType.MERGE,CascadeType.REMOVE},orphanRemoval = true)
     private List<CartItem> cartItems = new ArrayList<>();
 
-    private Double totalPrice=0.0;
+    // In minor units, kept equal to the sum of the lines by CartPricing
+    @Column(name = "total_price_minor", nullable = false)
+    private long totalPriceMinor;
+
+    // Bulk statements over carts bump it too (see CartLocks), so a write from an older read fails at commit
+    @Version
+    private Long version;
+
+    public Double getTotalPrice() {
+        return Money.toMajor(totalPriceMinor);
+    }
+
+    public void setTotalPrice(Double totalPrice) {
+        this.totalPriceMinor = Money.toMinor(totalPrice);
+    }
 }
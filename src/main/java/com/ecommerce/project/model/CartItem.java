@@ -1,5 +1,6 @@
 package com.ecommerce.project.model;
 
+import com.ecommerce.project.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,7 +10,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name="cart_items")
+// product_id is indexed for the set-based statements that touch every cart holding a product
+@Table(name="cart_items", indexes = @Index(name = "idx_cart_items_product_id", columnList = "product_id"))
 public class CartItem {
 
     @Id
@@ -26,5 +28,16 @@ public class CartItem {
 
     private Integer quantity;
     private Double discount;
-    private Double productPrice;
+
+    // Unit price in minor units, as it was when the line was last priced
+    @Column(name = "product_price_minor", nullable = false)
+    private long productPriceMinor;
+
+    public Double getProductPrice() {
+        return Money.toMajor(productPriceMinor);
+    }
+
+    public void setProductPrice(Double productPrice) {
+        this.productPriceMinor = Money.toMinor(productPrice);
+    }
 }
@@ -0,0 +1,37 @@
+package com.ecommerce.project.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Written in the same transaction as the order; the worker marks it processed in the transaction that finishes the order,
+// or failed once it ran out of attempts
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "order_outbox")
+public class OrderOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Long cartId;
+
+    private Instant createdAt;
+    private Instant processedAt;
+    private Instant failedAt;
+    private int attempts;
+    private String lastError;
+
+    public OrderOutboxEvent(Long orderId, Long cartId) {
+        this.orderId = orderId;
+        this.cartId = cartId;
+        this.createdAt = Instant.now();
+    }
+}
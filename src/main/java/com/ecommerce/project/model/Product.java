@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
@@ -35,14 +36,26 @@ public class Product {
     private double discount;
     private double specialPrice;
 
-    @ManyToOne
+    // Set instead of deleting the row when project.product.soft-delete is on, so order items keep their product
+    private boolean deleted;
+
+    // Lazy: checkout and cart reads load many products and only ever need the category id
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="category_id")
     private Category category;
 
-    @ManyToOne
+    // Lazy: product reads never need the seller row
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="seller_id")
     private User user;
 
-    @OneToMany(mappedBy = "product",cascade = {CascadeType.PERSIST,CascadeType.MERGE},fetch = FetchType.EAGER)
+    // Lazy: catalog reads must never pull in cart rows, cart-side code fetches the link explicitly
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "product",cascade = {CascadeType.PERSIST,CascadeType.MERGE},fetch = FetchType.LAZY)
     private List<CartItem> products = new ArrayList<>();
 }
@@ -0,0 +1,22 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row of the cart read query: the cart header repeated on each line, product fields null for an empty cart
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineView {
+    private Long cartId;
+    private Long totalPriceMinor;
+    private Long productId;
+    private String productName;
+    private String image;
+    private String description;
+    private Integer quantity;
+    private Double price;
+    private Double discount;
+    private Double specialPrice;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartRepriceResultDTO {
+    // cart id ranges processed, one transaction each
+    private int batches;
+    private long linesRepriced;
+    // carts whose total no longer matched their lines, after repricing or through drift
+    private long totalsCorrected;
+    private long durationMs;
+}
@@ -9,7 +9,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.Value;
-import org.modelmapper.internal.bytebuddy.dynamic.loading.InjectionClassLoader;
 
 @Data
 @NoArgsConstructor
@@ -0,0 +1,21 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPipelineStatsDTO {
+    private boolean async;
+    // outbox rows still to be processed
+    private long pending;
+    // rows that ran out of attempts; their orders failed and gave their stock back
+    private long failed;
+    private int inFlight;
+    private int queued;
+    private int activeWorkers;
+    private long processed;
+    private long errors;
+}
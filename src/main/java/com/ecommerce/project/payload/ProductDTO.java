@@ -1,11 +1,15 @@
 package com.ecommerce.project.payload;
 
+import com.ecommerce.project.util.ImageVariant;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,4 +27,10 @@ public class ProductDTO {
     private double price;
     private double discount;
     private double specialPrice;
+
+    // Derived from image, so every way a ProductDTO is built (projections, mapper, cart view) exposes it
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public Map<String, String> getImageVariants() {
+        return ImageVariant.urls(image);
+    }
 }
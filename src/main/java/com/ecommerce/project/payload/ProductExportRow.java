@@ -0,0 +1,6 @@
+package com.ecommerce.project.payload;
+
+// One exported product. Field names match the import columns, so an export can be imported elsewhere as is.
+public record ProductExportRow(Long productId, String productName, String description, Long categoryId,
+                               Integer quantity, double price, double discount, double specialPrice, String image) {
+}
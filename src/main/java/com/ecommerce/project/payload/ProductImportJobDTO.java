@@ -0,0 +1,25 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportJobDTO {
+    private String jobId;
+    private String status;
+    private String format;
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    // the first project.product-import.max-errors failures; failed keeps counting past that
+    private List<ProductImportErrorDTO> errors;
+    private String message;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
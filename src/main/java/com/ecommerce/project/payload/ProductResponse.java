@@ -16,4 +16,6 @@ public class ProductResponse {
     private Long totalElements;
     private Integer totalPages;
     private boolean lastPage;
+    // only set in cursor mode, where the totals above are left null
+    private String nextCursor;
 }
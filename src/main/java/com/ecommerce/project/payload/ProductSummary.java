@@ -0,0 +1,13 @@
+package com.ecommerce.project.payload;
+
+// Closed projection for keyset scrolling: Spring Data selects just these columns, no managed Product is loaded
+public interface ProductSummary {
+    Long getProductId();
+    String getProductName();
+    String getImage();
+    String getDescription();
+    Integer getQuantity();
+    double getPrice();
+    double getDiscount();
+    double getSpecialPrice();
+}
@@ -1,10 +1,14 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.util.Money;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface CartItemRepository extends JpaRepository<CartItem,Long> {
     @Query("SELECT ci FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id = ?2")
     CartItem findCartItemsByProductIdAndCartId(Long cartId, Long productId);
@@ -12,4 +16,41 @@ public interface CartItemRepository extends JpaRepository<CartItem,Long> {
     @Modifying
     @Query("DELETE from CartItem ci where ci.cart.id = ?1 AND ci.product.id = ?2")
     void deleteCartItemByProductIdAndCartId(Long cartId, Long productId);
+
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product WHERE ci.cart.id = ?1")
+    List<CartItem> findByCartIdWithProduct(Long cartId);
+
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product WHERE ci.cart.cartId IN ?1")
+    List<CartItem> findByCartIdInWithProduct(Collection<Long> cartIds);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id IN ?2")
+    void deleteByCartIdAndProductIdIn(Long cartId, Collection<Long> productIds);
+
+    // Money.toMinor in SQL: the double goes to a decimal first, so 1.005 is rounded half up to 101 and not to 100
+    String PRICE_MINOR = "CAST(ROUND(CAST(p.specialPrice AS BigDecimal) * " + Money.MINOR_UNITS + ", 0) AS Long)";
+
+    // Lines of an id range of carts take their product's current special price and discount; returns lines changed
+    @Modifying
+    @Query("UPDATE CartItem ci SET " +
+            "ci.productPriceMinor = (SELECT " + PRICE_MINOR + " FROM Product p WHERE p.productId = ci.product.productId), " +
+            "ci.discount = (SELECT p.discount FROM Product p WHERE p.productId = ci.product.productId) " +
+            "WHERE ci.cart.cartId BETWEEN ?1 AND ?2 AND EXISTS (SELECT 1 FROM Product p WHERE p.productId = ci.product.productId " +
+            "AND (ci.productPriceMinor <> " + PRICE_MINOR + " OR ci.discount IS NULL OR ci.discount <> p.discount))")
+    int repriceLines(Long fromCartId, Long toCartId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.product.productId = ?1")
+    int deleteByProductId(Long productId);
+
+    @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.product.productId = ?1")
+    long countByProductId(Long productId);
+
+    // Every line of one product takes the special price, already in minor units, and the product's discount, in one
+    // statement. Nothing changes once the product has another special price: a newer reprice is on its way.
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.productPriceMinor = ?2, " +
+            "ci.discount = (SELECT p.discount FROM Product p WHERE p.productId = ?1) " +
+            "WHERE ci.product.productId = ?1 AND EXISTS (SELECT 1 FROM Product p WHERE p.productId = ?1 AND p.specialPrice = ?3)")
+    int repriceProductLines(Long productId, long priceMinor, Double specialPrice);
 }
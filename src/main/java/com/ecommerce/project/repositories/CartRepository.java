@@ -1,7 +1,11 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.payload.CartLineView;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
@@ -12,9 +16,65 @@ public interface CartRepository extends JpaRepository<Cart,Long> {
     @Query("SELECT c FROM Cart c where c.user.email = ?1")
     Cart findCartByEmail(String email);
 
+    // c.user.userId resolves to the carts.user_id column, no join on users
+    @Query("SELECT c FROM Cart c WHERE c.user.userId = ?1")
+    Cart findCartByUserId(Long userId);
+
+    @Query("SELECT c.user.userId FROM Cart c WHERE c.cartId = ?1")
+    Long findUserIdByCartId(Long cartId);
+
+    @Query("SELECT c.user.userId FROM Cart c WHERE c.user.email = ?1")
+    Long findUserIdByEmail(String email);
+
+    // Cart, lines and the product fields CartDTO shows, in one round-trip and without managed entities
+    @Query("SELECT new com.ecommerce.project.payload.CartLineView(c.cartId, c.totalPriceMinor, p.productId, p.productName, " +
+            "p.image, p.description, ci.quantity, p.price, p.discount, p.specialPrice) " +
+            "FROM Cart c LEFT JOIN c.cartItems ci LEFT JOIN ci.product p " +
+            "WHERE c.user.userId = ?1 ORDER BY ci.cartItemId")
+    List<CartLineView> findCartViewByUserId(Long userId);
+
+    // Total from the lines still in the cart, in one statement
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.totalPriceMinor = COALESCE((SELECT SUM(ci.productPriceMinor * ci.quantity) FROM CartItem ci " +
+            "WHERE ci.cart.cartId = ?1), 0) WHERE c.cartId = ?1")
+    void recomputeTotalPrice(Long cartId);
+
+    // Same, for the carts of an id range whose stored total differs from their lines; returns how many were off
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.totalPriceMinor = COALESCE((SELECT SUM(ci.productPriceMinor * ci.quantity) FROM CartItem ci " +
+            "WHERE ci.cart.cartId = c.cartId), 0) " +
+            "WHERE c.cartId BETWEEN ?1 AND ?2 AND c.totalPriceMinor <> COALESCE((SELECT SUM(ci.productPriceMinor * ci.quantity) " +
+            "FROM CartItem ci WHERE ci.cart.cartId = c.cartId), 0)")
+    int recomputeTotalPrices(Long fromCartId, Long toCartId);
+
+    // Totals of every cart holding the product, recomputed from their lines in one statement
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.totalPriceMinor = COALESCE((SELECT SUM(ci.productPriceMinor * ci.quantity) FROM CartItem ci " +
+            "WHERE ci.cart.cartId = c.cartId), 0) " +
+            "WHERE c.cartId IN (SELECT ci.cart.cartId FROM CartItem ci WHERE ci.product.productId = ?1)")
+    int recomputeTotalPricesByProductId(Long productId);
+
+    // Row locks for the bulk statements below, taken before they read any line: a cart write in flight commits
+    // first and its lines are counted, a later one finds the version bumped and is run again
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.cartId FROM Cart c WHERE c.cartId IN (SELECT ci.cart.cartId FROM CartItem ci WHERE ci.product.productId = ?1) " +
+            "ORDER BY c.cartId")
+    List<Long> lockCartsByProductId(Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.cartId FROM Cart c WHERE c.cartId BETWEEN ?1 AND ?2 ORDER BY c.cartId")
+    List<Long> lockCarts(Long fromCartId, Long toCartId);
+
+    @Query("SELECT MAX(c.cartId) FROM Cart c")
+    Long findMaxCartId();
+
     @Query("SELECT c FROM Cart c WHERE c.user.email = ?1 AND c.id = ?2")
     Cart findCartByEmailAndCartId(String emailId, Long cartId);
 
-    @Query("SELECT c FROM Cart c JOIN FETCH c.cartItems ci JOIN FETCH ci.product p where p.productId = ?1")
-    List<Cart> findCartsByProductId(Long productId);
+    // Every cart holding the product loses that line's amount; run before the lines are deleted
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.totalPriceMinor = c.totalPriceMinor - COALESCE((SELECT SUM(ci.productPriceMinor * ci.quantity) " +
+            "FROM CartItem ci WHERE ci.cart.cartId = c.cartId AND ci.product.productId = ?1), 0) " +
+            "WHERE c.cartId IN (SELECT ci.cart.cartId FROM CartItem ci WHERE ci.product.productId = ?1)")
+    int subtractProductLines(Long productId);
 }
@@ -1,9 +1,22 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Category;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category,Long> {
 
     Category findByCategoryName(String categoryName);
+
+    @Query("SELECT c.categoryId FROM categories c WHERE c.categoryId IN ?1")
+    List<Long> findCategoryIdsIn(Collection<Long> categoryIds);
+
+    Window<Category> findAllBy(ScrollPosition position, Sort sort, Limit limit);
 }
@@ -2,8 +2,13 @@ package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem,Long> {
+    @Query("SELECT oi.product.productId FROM OrderItem oi WHERE oi.order.orderId = ?1")
+    List<Long> findProductIdsByOrderId(Long orderId);
 }
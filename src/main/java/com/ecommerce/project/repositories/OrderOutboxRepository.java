@@ -0,0 +1,33 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.OrderOutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM OrderOutboxEvent e WHERE e.processedAt IS NULL AND e.failedAt IS NULL AND e.id NOT IN ?1 ORDER BY e.id")
+    List<Long> findPendingIds(Collection<Long> excludedIds, Limit limit);
+
+    // Row lock, so two workers (or two instances) can never finish the same event twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OrderOutboxEvent e WHERE e.id = ?1")
+    Optional<OrderOutboxEvent> findByIdForUpdate(Long id);
+
+    // The user whose cart the event clears; null once the cart is gone
+    @Query("SELECT c.user.userId FROM OrderOutboxEvent e, Cart c WHERE e.id = ?1 AND c.cartId = e.cartId")
+    Long findCartUserIdById(Long id);
+
+    long countByProcessedAtIsNullAndFailedAtIsNull();
+
+    long countByFailedAtIsNotNull();
+
+    boolean existsByCartIdAndProcessedAtIsNullAndFailedAtIsNull(Long cartId);
+}
@@ -1,16 +1,76 @@
 package com.ecommerce.project.repositories;
 
-import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductExportRow;
+import com.ecommerce.project.payload.ProductSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+// Soft-deleted products (Product.deleted) are kept for their order items only: every query below but findById skips them
 public interface ProductRepository extends JpaRepository<Product,Long> {
-    Page<Product> findByCategoryOrderByPriceAsc(Category category, Pageable pageDetails);
-    Page<Product> findByProductNameLikeIgnoreCase(String keyword, Pageable pageDetails);
+    Product findByProductNameAndDeletedFalse(String productName);
 
-    Product findByProductName(String productName);
+    @Query("SELECT p FROM Product p WHERE p.productId = ?1 AND p.deleted = false")
+    Optional<Product> findActiveById(Long productId);
+
+    // Which of the given names are taken, in one query (bulk import checks a whole batch at once)
+    @Query("SELECT p.productName FROM Product p WHERE p.productName IN ?1 AND p.deleted = false")
+    List<String> findProductNamesIn(Collection<String> productNames);
+
+    // Catalog read model: projects straight into ProductDTO so no entity (and none of its associations) is loaded
+    @Query(value = "SELECT new com.ecommerce.project.payload.ProductDTO(p.productId, p.productName, p.image, p.description, p.quantity, p.price, p.discount, p.specialPrice) FROM Product p WHERE p.deleted = false",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.deleted = false")
+    Page<ProductDTO> findCatalogPage(Pageable pageDetails);
+
+    @Query(value = "SELECT new com.ecommerce.project.payload.ProductDTO(p.productId, p.productName, p.image, p.description, p.quantity, p.price, p.discount, p.specialPrice) FROM Product p WHERE p.category.categoryId = ?1 AND p.deleted = false ORDER BY p.price ASC",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.categoryId = ?1 AND p.deleted = false")
+    Page<ProductDTO> findCatalogPageByCategoryId(Long categoryId, Pageable pageDetails);
+
+    @Query("SELECT new com.ecommerce.project.payload.ProductDTO(p.productId, p.productName, p.image, p.description, p.quantity, p.price, p.discount, p.specialPrice) FROM Product p WHERE p.productId IN ?1 AND p.deleted = false")
+    List<ProductDTO> findCatalogByProductIdIn(Collection<Long> productIds);
+
+    @Query("SELECT new com.ecommerce.project.payload.ProductDTO(p.productId, p.productName, p.image, p.description, p.quantity, p.price, p.discount, p.specialPrice) FROM Product p WHERE p.deleted = false")
+    Slice<ProductDTO> findCatalogSlice(Pageable pageDetails);
+
+    // Export: a forward-only cursor fetching EXPORT_FETCH_SIZE rows per round-trip, projected so nothing is managed.
+    // Callers must consume the stream inside a transaction (Postgres only honours the fetch size outside autocommit).
+    String EXPORT_FETCH_SIZE = "500";
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.ecommerce.project.payload.ProductExportRow(p.productId, p.productName, p.description, p.category.categoryId, " +
+            "p.quantity, p.price, p.discount, p.specialPrice, p.image) FROM Product p WHERE p.deleted = false ORDER BY p.productId")
+    Stream<ProductExportRow> streamExport();
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.ecommerce.project.payload.ProductExportRow(p.productId, p.productName, p.description, p.category.categoryId, " +
+            "p.quantity, p.price, p.discount, p.specialPrice, p.image) FROM Product p WHERE p.category.categoryId = ?1 AND p.deleted = false ORDER BY p.productId")
+    Stream<ProductExportRow> streamExportByCategoryId(Long categoryId);
+
+    // Keyset scrolling: no OFFSET and no count query
+    Window<ProductSummary> findByDeletedFalse(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<ProductSummary> findByCategoryCategoryIdAndDeletedFalse(Long categoryId, ScrollPosition position, Sort sort, Limit limit);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.deleted = true WHERE p.productId = ?1")
+    int markDeleted(Long productId);
 }
@@ -1,9 +1,12 @@
 package com.ecommerce.project.repositories;
 
+import com.ecommerce.project.model.AppRole;
 import com.ecommerce.project.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +16,8 @@ public interface UserRepository extends JpaRepository<User,Long> {
     boolean existsByUserName(String username);
 
     boolean existsByEmail(String email);
+
+    // no rows -> the user is gone; a single null row -> the user exists without roles
+    @Query("SELECT r.roleName FROM User u LEFT JOIN u.roles r WHERE u.userId = ?1")
+    List<AppRole> findRoleNamesByUserId(Long userId);
 }
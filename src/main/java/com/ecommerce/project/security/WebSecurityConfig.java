@@ -7,6 +7,7 @@ import com.ecommerce.project.repositories.RoleRepository;
 import com.ecommerce.project.repositories.UserRepository;
 import com.ecommerce.project.security.jwt.AuthEntryPointJwt;
 import com.ecommerce.project.security.jwt.AuthTokenFilter;
+import com.ecommerce.project.security.services.UserAuthorityCache;
 import com.ecommerce.project.security.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -49,6 +50,9 @@ public class WebSecurityConfig {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    UserAuthorityCache userAuthorityCache;
+
     @Bean
     public DaoAuthenticationProvider authenticationProvider(){
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
@@ -144,20 +148,23 @@ public class WebSecurityConfig {
                 userRepository.save(admin);
             }
 
-            // Update roles for existing users
+            // Update roles for existing users; the evictions make tokens already issued to them see the new roles
             userRepository.findByUserName("user1").ifPresent(user -> {
                 user.setRoles(userRoles);
                 userRepository.save(user);
+                userAuthorityCache.evict(user.getUserId());
             });
 
             userRepository.findByUserName("seller1").ifPresent(seller -> {
                 seller.setRoles(sellerRoles);
                 userRepository.save(seller);
+                userAuthorityCache.evict(seller.getUserId());
             });
 
             userRepository.findByUserName("admin").ifPresent(admin -> {
                 admin.setRoles(adminRoles);
                 userRepository.save(admin);
+                userAuthorityCache.evict(admin.getUserId());
             });
         };
     }
@@ -1,6 +1,9 @@
 package com.ecommerce.project.security.jwt;
 
+import com.ecommerce.project.security.services.UserAuthorityCache;
+import com.ecommerce.project.security.services.UserDetailsImpl;
 import com.ecommerce.project.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -17,6 +21,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -25,6 +30,8 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
+    @Autowired
+    private UserAuthorityCache userAuthorityCache;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
     @Override
@@ -32,9 +39,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
        logger.debug("AuthTokenFilter called for URI: {}",request.getRequestURI());
        try{
           String jwt = parseJwt(request);
-          if(jwt != null && jwtUtils.validateJwtToken(jwt)){
-              String username = jwtUtils.getUserNameFromJWTToken(jwt);
-              UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+          Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+          UserDetails userDetails = claims != null ? userDetailsFromClaims(claims) : null;
+          if(userDetails != null){
               UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails,null,userDetails.getAuthorities());
               authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
               SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -46,6 +53,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
        filterChain.doFilter(request,response);
     }
 
+    // Stateless path: identity from the token, authorities from the short-lived cache so role changes still apply.
+    // Returns null when the user behind the token has been removed.
+    private UserDetails userDetailsFromClaims(Claims claims) {
+        UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+        if(userDetails == null) return userDetailsService.loadUserByUsername(claims.getSubject());
+
+        List<GrantedAuthority> authorities = userAuthorityCache.currentAuthorities(userDetails.getId());
+        if(authorities == null) return null;
+        userDetails.setAuthorities(authorities);
+        return userDetails;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String jwt = jwtUtils.getJwtFromCookies(request);
         logger.debug("AuthTokenFilter.java: {}",jwt);
@@ -1,12 +1,16 @@
 package com.ecommerce.project.security.jwt;
 
 import com.ecommerce.project.security.services.UserDetailsImpl;
+import com.ecommerce.project.util.BoundedCache;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
@@ -18,12 +22,19 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.util.WebUtils;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+    private static final String ID_CLAIM = "id";
+    private static final String EMAIL_CLAIM = "email";
 
     @Value("${spring.app.jwtExpirationsMs}")
     private int jwtExpirationMs;
@@ -34,6 +45,21 @@ public class JwtUtils {
     @Value("${spring.ecom.app.jwtCookieName}")
     private String jwtCookie;
 
+    // 0 turns the verified-token cache off
+    @Value("${project.jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    // SHA-256 of the token -> claims that already passed signature verification, until the token's exp
+    private BoundedCache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = verifiedCacheMaxEntries > 0 ? new BoundedCache<>(verifiedCacheMaxEntries, jwtExpirationMs) : null;
+    }
 
     public String getJwtFromCookies(HttpServletRequest request){
         Cookie cookie = WebUtils.getCookie(request,jwtCookie);
@@ -42,7 +68,7 @@ public class JwtUtils {
     }
 
     public ResponseCookie generateJwtCookie(UserDetailsImpl userPrincipal){
-        String jwt = generateTokenFromUsername(userPrincipal.getUsername());
+        String jwt = generateTokenFromUser(userPrincipal);
         ResponseCookie cookie = ResponseCookie.from(jwtCookie,jwt)
                 .path("/api")
                 .maxAge(24*60*60*10)
@@ -60,28 +86,45 @@ public class JwtUtils {
                 .compact();
     }
 
+    // Token carrying id and email, so requests can be authenticated without loading the user.
+    // No roles: they can change while the token is valid, AuthTokenFilter reads them from UserAuthorityCache.
+    public String generateTokenFromUser(UserDetailsImpl userPrincipal){
+        return Jwts.builder()
+                .subject(userPrincipal.getUsername())
+                .claim(ID_CLAIM, userPrincipal.getId())
+                .claim(EMAIL_CLAIM, userPrincipal.getEmail())
+                .issuedAt(new Date())
+                .expiration(new Date((new Date().getTime()+jwtExpirationMs)))
+                .signWith(key())
+                .compact();
+    }
+
+    // null for tokens issued before the user claims existed; those still go through loadUserByUsername.
+    // The authorities are left empty for the caller to fill in.
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims){
+        Long id = claims.get(ID_CLAIM, Long.class);
+        if(id == null) return null;
+        return new UserDetailsImpl(id, claims.getSubject(), claims.get(EMAIL_CLAIM, String.class), null, List.of());
+    }
+
     // Getting Username from JWT Token
     public String getUserNameFromJWTToken(String token){
-        return Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build().parseSignedClaims(token)
-                .getPayload().getSubject();
+        return verify(token).getSubject();
     }
 
-    // Generate Signing Key
+    // Signing Key, decoded once at startup
     public Key key(){
-      return Keys.hmacShaKeyFor(
-              Decoders.BASE64.decode(jwtSecret)
-      );
+      return signingKey;
     }
     // Validate JWT Token
     public boolean validateJwtToken(String authToken){
+        return parseClaims(authToken) != null;
+    }
+
+    // Verifies the token once and returns its claims, or null when it is not valid
+    public Claims parseClaims(String authToken){
         try{
-            System.out.println("Validate");
-            Jwts.parser().verifyWith((SecretKey) key())
-                    .build()
-                    .parseSignedClaims(authToken);
-            return true;
+            return verify(authToken);
         }
         catch(MalformedJwtException exception){
          logger.error("Invalid JWT token: {}",exception.getMessage());
@@ -95,7 +138,31 @@ public class JwtUtils {
         catch (IllegalArgumentException e){
             logger.error("JWT claims string is empty: {}",e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    private Claims verify(String token){
+        if(verifiedTokens == null) return jwtParser.parseSignedClaims(token).getPayload();
+
+        String digest = digest(token);
+        Claims claims = verifiedTokens.get(digest);
+        if(claims != null) return claims;
+
+        claims = jwtParser.parseSignedClaims(token).getPayload();
+        // tokens without exp are not cached, so they keep being verified on every request
+        if(claims.getExpiration() != null)
+            verifiedTokens.put(digest, claims, claims.getExpiration().getTime());
+        return claims;
+    }
+
+    private static String digest(String token){
+        try{
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        }
+        catch(NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     public ResponseCookie getCleanJwtCookie(){
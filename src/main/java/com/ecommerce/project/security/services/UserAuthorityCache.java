@@ -0,0 +1,56 @@
+package com.ecommerce.project.security.services;
+
+import com.ecommerce.project.model.AppRole;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/*
+  Current authorities per user id, re-read from the database at most once per TTL.
+  Lets the stateless JWT path pick up role changes and deleted users without loading the user on every request.
+*/
+@Component
+public class UserAuthorityCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final BoundedCache<Long, List<GrantedAuthority>> authorities;
+
+    public UserAuthorityCache(@Value("${project.auth.authority-cache.max-entries:10000}") int maxEntries,
+                              @Value("${project.auth.authority-cache.ttl-ms:30000}") long ttlMs) {
+        this.authorities = new BoundedCache<>(maxEntries, ttlMs);
+    }
+
+    // null when the user no longer exists
+    public List<GrantedAuthority> currentAuthorities(Long userId) {
+        List<GrantedAuthority> cached = authorities.get(userId);
+        if (cached != null) return cached;
+
+        List<AppRole> roleNames = userRepository.findRoleNamesByUserId(userId);
+        if (roleNames.isEmpty()) return null;
+
+        List<GrantedAuthority> current = roleNames.stream()
+                .filter(Objects::nonNull)
+                .map(roleName -> (GrantedAuthority) new SimpleGrantedAuthority(roleName.name()))
+                .toList();
+        authorities.put(userId, current);
+        return current;
+    }
+
+    // Call when a user's roles change or the user is removed, so the next request sees it immediately
+    public void evict(Long userId) {
+        authorities.remove(userId);
+    }
+
+    public void invalidateAll() {
+        authorities.clear();
+    }
+}
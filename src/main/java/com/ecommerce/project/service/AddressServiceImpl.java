@@ -1,13 +1,13 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.AddressMapper;
 import com.ecommerce.project.model.Address;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.AddressDTO;
 import com.ecommerce.project.repositories.AddressRepository;
 import com.ecommerce.project.repositories.UserRepository;
 import com.ecommerce.project.util.AuthUtil;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -18,7 +18,7 @@ import java.util.List;
 public class AddressServiceImpl implements AddressService{
 
     @Autowired
-    private ModelMapper modelMapper;
+    private AddressMapper addressMapper;
 
     @Autowired
     private AuthUtil authUtil;
@@ -31,22 +31,19 @@ public class AddressServiceImpl implements AddressService{
 
     @Override
     public AddressDTO createAddress(AddressDTO addressDTO,User user) {
-        Address address = modelMapper.map(addressDTO,Address.class);
-
-        List<Address> addressList = user.getAddresses();
-        addressList.add(address);
-        user.setAddresses(addressList);
+        Address address = addressMapper.toAddress(addressDTO);
 
+        // the owning side is enough; user may be an uninitialized reference
         address.setUser(user);
         Address savedAddress = addressRepository.save(address);
 
-        return modelMapper.map(savedAddress, AddressDTO.class);
+        return addressMapper.toAddressDTO(savedAddress);
     }
 
     @Override
     public List<AddressDTO> getAllAddresses() {
         return addressRepository.findAll()
-                .stream().map(address -> modelMapper.map(address, AddressDTO.class)).toList();
+                .stream().map(addressMapper::toAddressDTO).toList();
     }
 
     @Override
@@ -54,13 +51,13 @@ public class AddressServiceImpl implements AddressService{
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address","addressId",addressId));
 
-        return modelMapper.map(address, AddressDTO.class);
+        return addressMapper.toAddressDTO(address);
     }
 
     @Override
     public List<AddressDTO> getUserAddresses(User user) {
-        List<Address> userAddressList = user.getAddresses();
-        return userAddressList.stream().map(address -> modelMapper.map(address, AddressDTO.class)).toList();
+        return addressRepository.findByUserId(user.getUserId())
+                .stream().map(addressMapper::toAddressDTO).toList();
     }
 
     @Override
@@ -96,7 +93,7 @@ public class AddressServiceImpl implements AddressService{
         user.getAddresses().removeIf(address1 -> address1.getAddressId().equals(addressId));
         user.getAddresses().add(savedAddress);
 //        userRepository.save(user);
-        return modelMapper.map(savedAddress, AddressDTO.class);
+        return addressMapper.toAddressDTO(savedAddress);
     }
 
     @Override
@@ -0,0 +1,190 @@
+package com.ecommerce.project.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/*
+  Append-only log behind CartWriteBehindStore. A quantity change is appended (and by default forced to disk)
+  before the request is answered; once a cart's changes are in the database a marker with the last change
+  written is appended. After a crash, the changes newer than their cart's marker are what the database misses.
+  The log is split in numbered segments. The journal remembers which segment each change not marked written yet is
+  in, so compact can delete those the database has caught up with, even while changes are appended.
+
+  U,<seq>,<cartId>,<productId>,<quantity>   the line's quantity is now <quantity>, 0 = removed
+  F,<seq>,<cartId>                          the cart's changes up to <seq> are in the database
+*/
+public class CartJournal implements Closeable {
+
+    private static final String PREFIX = "cart-journal-";
+    private static final String SUFFIX = ".log";
+
+    public record Change(long seq, long cartId, long productId, int quantity) {
+    }
+
+    private record Line(long cartId, long productId) {
+    }
+
+    private record Unwritten(long seq, long segment) {
+    }
+
+    private final Path dir;
+    private final boolean sync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Change> recovered;
+    // per cart, oldest first; appends of one cart come in seq order
+    private final Map<Long, ArrayDeque<Unwritten>> unwritten = new HashMap<>();
+    private long seq;
+    private long segment;
+    private long segmentBytes;
+    private FileChannel channel;
+
+    public CartJournal(Path dir, boolean sync) throws IOException {
+        this.dir = dir;
+        this.sync = sync;
+        Files.createDirectories(dir);
+
+        Map<Line, Change> latest = new HashMap<>();
+        Map<Long, Long> written = new HashMap<>();
+        for (Path file : segments()) {
+            segment = number(file);
+            // a record is complete once its newline is written; the last one of a crashed run may not be
+            String[] records = Files.readString(file, StandardCharsets.US_ASCII).split("\n", -1);
+            for (int i = 0; i < records.length - 1; i++) read(records[i], latest, written);
+        }
+        recovered = latest.values().stream()
+                .filter(change -> change.seq() > written.getOrDefault(change.cartId(), 0L))
+                .sorted(Comparator.comparingLong(Change::seq))
+                .toList();
+        open(segment + 1);
+    }
+
+    // Changes of the previous run that never reached the database, the latest per cart line
+    public List<Change> recovered() {
+        return recovered;
+    }
+
+    public Change append(long cartId, long productId, int quantity) {
+        lock.lock();
+        try {
+            Change change = new Change(++seq, cartId, productId, quantity);
+            write("U," + change.seq() + "," + cartId + "," + productId + "," + quantity + "\n");
+            unwritten.computeIfAbsent(cartId, id -> new ArrayDeque<>()).addLast(new Unwritten(change.seq(), segment));
+            return change;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void markWritten(long cartId, long upToSeq) {
+        lock.lock();
+        try {
+            write("F," + upToSeq + "," + cartId + "\n");
+            ArrayDeque<Unwritten> changes = unwritten.get(cartId);
+            if (changes == null) return;
+            while (!changes.isEmpty() && changes.peekFirst().seq() <= upToSeq) changes.removeFirst();
+            if (changes.isEmpty()) unwritten.remove(cartId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Starts a new segment, then deletes the ones before the oldest segment holding a change not marked written
+    public void compact() {
+        long kept;
+        lock.lock();
+        try {
+            if (segmentBytes > 0) {
+                channel.close();
+                open(segment + 1);
+            }
+            kept = segment;
+            for (ArrayDeque<Unwritten> changes : unwritten.values()) kept = Math.min(kept, changes.peekFirst().segment());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            for (Path file : segments()) {
+                if (number(file) < kept) Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            // the segments are read again at the next start, where their changes are found already written
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open(long number) throws IOException {
+        segment = number;
+        segmentBytes = 0;
+        channel = FileChannel.open(dir.resolve(String.format("%s%012d%s", PREFIX, number, SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void write(String record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.US_ASCII));
+        try {
+            while (buffer.hasRemaining()) segmentBytes += channel.write(buffer);
+            if (sync) channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart journal write failed", e);
+        }
+    }
+
+    private void read(String record, Map<Line, Change> latest, Map<Long, Long> written) {
+        String[] fields = record.split(",");
+        try {
+            if (fields.length == 5 && fields[0].equals("U")) {
+                Change change = new Change(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Long.parseLong(fields[3]), Integer.parseInt(fields[4]));
+                latest.merge(new Line(change.cartId(), change.productId()), change,
+                        (a, b) -> a.seq() > b.seq() ? a : b);
+                seq = Math.max(seq, change.seq());
+            } else if (fields.length == 3 && fields[0].equals("F")) {
+                written.merge(Long.parseLong(fields[2]), Long.parseLong(fields[1]), Math::max);
+            }
+        } catch (NumberFormatException e) {
+            // not a record this journal wrote; skipped rather than failing the start
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(CartJournal::number))
+                    .toList();
+        }
+    }
+
+    private static long number(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.util.StripedLocks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+  Every path that changes one user's cart (the cart endpoints, checkout, the order outbox worker) runs under the
+  user's stripe of these locks, in a transaction committed before the lock is released. Bulk statements over many
+  carts (repricing, product deletion) can't take them; they bump Cart's version instead, so a per-user transaction
+  that read the cart before them fails at commit and is run again by inTransaction.
+  Locks are per JVM, carts.user_id being unique stops a second cart across instances.
+  These are also the only way onto a cart the write-behind store may hold in memory: withUserLock writes and drops
+  the user's held cart before its work runs, acrossCarts every held cart, so the work reads what the database says.
+*/
+@Component
+public class CartLocks {
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Lazy: the store locks its carts through these
+    @Lazy
+    @Autowired
+    private CartWriteBehindStore cartWriteBehindStore;
+
+    private final StripedLocks userLocks;
+    private final int attempts;
+
+    public CartLocks(@Value("${project.cart.lock-stripes:256}") int lockStripes,
+                     @Value("${project.cart.conflict-attempts:5}") int attempts) {
+        this.userLocks = new StripedLocks(lockStripes);
+        this.attempts = attempts;
+    }
+
+    public <T> T withUserLock(Long userId, Supplier<T> work) {
+        return holdingUserLock(userId, () -> {
+            cartWriteBehindStore.flushUser(userId);
+            return work.get();
+        });
+    }
+
+    // For reads and bulk statements over many carts, which take no user lock
+    public <T> T acrossCarts(Supplier<T> work) {
+        cartWriteBehindStore.flushAll();
+        return work.get();
+    }
+
+    // The bare locks, for the write-behind store working on the carts it holds
+    <T> T holdingUserLock(Long userId, Supplier<T> work) {
+        ReentrantLock lock = userLocks.get(userId);
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    <T> T holdingUserLocks(Collection<Long> userIds, Supplier<T> work) {
+        List<ReentrantLock> held = userLocks.getAll(userIds);
+        held.forEach(ReentrantLock::lock);
+        try {
+            return work.get();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) held.get(i).unlock();
+        }
+    }
+
+    public <T> T inTransaction(Supplier<T> work) {
+        // a caller's transaction is rolled back as a whole, it can't be retried from in here
+        if (TransactionSynchronizationManager.isActualTransactionActive()) return transactionTemplate.execute(status -> work.get());
+        return retryingConflicts(attempts, () -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    // Runs a transaction again while it loses against a concurrent version bump
+    static <T> T retryingConflicts(int attempts, Supplier<T> transaction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= attempts) throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.payload.CartRepriceResultDTO;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/*
+  All cart money goes through here. Amounts are long minor units (see Money): a line change moves the cart total
+  by exactly that line's difference, without reloading the other lines, and the total stays the sum of its lines.
+  repriceAllCarts brings every line to its product's current price with set-based statements, cart id range by
+  range, so no cart is loaded into the persistence context. repriceProduct does the same for the carts of one
+  product after it was updated, off the request thread when it holds more than async-threshold lines. Both lock
+  the cart rows first and bump their version, so they and the per-user writes under CartLocks can't lose each
+  other's updates.
+*/
+@Component
+public class CartPricing {
+    private static final Logger logger = LoggerFactory.getLogger(CartPricing.class);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CartLocks cartLocks;
+
+    @Autowired
+    @Qualifier("cartRepriceExecutor")
+    private ThreadPoolTaskExecutor cartRepriceExecutor;
+
+    @Value("${project.cart.reprice.batch-size:1000}")
+    private int repriceBatchSize;
+
+    @Value("${project.cart.reprice.async-threshold:1000}")
+    private long asyncThreshold;
+
+    public static long lineTotal(CartItem cartItem) {
+        return Math.multiplyExact(cartItem.getProductPriceMinor(), (long) cartItem.getQuantity());
+    }
+
+    // Prices the line at unitPrice x quantity, new or existing, and moves the cart total by the difference
+    public void setLine(Cart cart, CartItem cartItem, Double unitPrice, int quantity) {
+        long before = cartItem.getQuantity() == null ? 0 : lineTotal(cartItem);
+        cartItem.setProductPriceMinor(Money.toMinor(unitPrice));
+        cartItem.setQuantity(quantity);
+        cart.setTotalPriceMinor(Math.addExact(cart.getTotalPriceMinor(), lineTotal(cartItem) - before));
+    }
+
+    public void removeLine(Cart cart, CartItem cartItem) {
+        cart.setTotalPriceMinor(Math.subtractExact(cart.getTotalPriceMinor(), lineTotal(cartItem)));
+    }
+
+    public static long totalOf(List<CartItem> cartItems) {
+        long total = 0;
+        for (CartItem cartItem : cartItems) total = Math.addExact(total, lineTotal(cartItem));
+        return total;
+    }
+
+    // Checksum for callers that have all the lines loaded anyway: returns what the lines add up to, a drifted total
+    // is only logged. The cart is left alone, a bulk recompute later in the transaction would leave it stale.
+    public long verify(Cart cart, List<CartItem> cartItems) {
+        long total = totalOf(cartItems);
+        if (total != cart.getTotalPriceMinor())
+            logger.warn("Cart {} total {} does not match its lines {}", cart.getCartId(), cart.getTotalPriceMinor(), total);
+        return total;
+    }
+
+    // Call once the product's new price is committed; its discount is read from the products table
+    public void repriceProduct(Long productId, Double specialPrice) {
+        // carts held in memory are written and dropped, so they are read again at the new price
+        long lines = cartLocks.acrossCarts(() -> cartItemRepository.countByProductId(productId));
+        if (lines == 0) return;
+        if (lines <= asyncThreshold) {
+            repriceProductLines(productId, specialPrice);
+            return;
+        }
+        try {
+            cartRepriceExecutor.execute(() -> {
+                try {
+                    repriceProductLines(productId, specialPrice);
+                } catch (RuntimeException e) {
+                    // the carts keep their old prices until the next repriceAllCarts
+                    logger.error("Repricing the carts of product {} failed: {}", productId, e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            logger.warn("Cart reprice queue is full, repricing product {} inline", productId);
+            repriceProductLines(productId, specialPrice);
+        }
+    }
+
+    // the carts locked, lines repriced, then the totals from the new line prices, in one transaction
+    private void repriceProductLines(Long productId, Double specialPrice) {
+        long start = System.currentTimeMillis();
+        int[] counts = transactionTemplate.execute(status -> {
+            cartRepository.lockCartsByProductId(productId);
+            return new int[]{
+                    cartItemRepository.repriceProductLines(productId, Money.toMinor(specialPrice), specialPrice),
+                    cartRepository.recomputeTotalPricesByProductId(productId)};
+        });
+        logger.debug("Repriced {} lines in {} carts for product {} in {} ms", counts[0], counts[1], productId,
+                System.currentTimeMillis() - start);
+    }
+
+    public CartRepriceResultDTO repriceAllCarts() {
+        long start = System.currentTimeMillis();
+        Long maxCartId = cartRepository.findMaxCartId();
+        int batches = 0;
+        long linesRepriced = 0;
+        long totalsCorrected = 0;
+        for (long from = 1; maxCartId != null && from <= maxCartId; from += repriceBatchSize) {
+            long to = from + repriceBatchSize - 1;
+            long rangeStart = from;
+            // lines first, so the totals of the range are recomputed from the new prices in the same transaction
+            int[] counts = transactionTemplate.execute(status -> {
+                cartRepository.lockCarts(rangeStart, to);
+                return new int[]{
+                        cartItemRepository.repriceLines(rangeStart, to),
+                        cartRepository.recomputeTotalPrices(rangeStart, to)};
+            });
+            linesRepriced += counts[0];
+            totalsCorrected += counts[1];
+            batches++;
+        }
+        long durationMs = System.currentTimeMillis() - start;
+        logger.info("Repriced {} cart lines and corrected {} cart totals in {} ms", linesRepriced, totalsCorrected, durationMs);
+        return new CartRepriceResultDTO(batches, linesRepriced, totalsCorrected, durationMs);
+    }
+}
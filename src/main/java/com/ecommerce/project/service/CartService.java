@@ -1,6 +1,7 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.CartRepriceResultDTO;
 import jakarta.transaction.Transactional;
 
 import java.util.List;
@@ -12,6 +13,8 @@ public interface CartService {
 
     CartDTO getCart(String emailId, Long cartId);
 
+    CartDTO getUserCart(Long userId);
+
     @Transactional
     CartDTO updateProductQuantityIncart(Long productId, Integer quantity);
 
@@ -19,4 +22,6 @@ public interface CartService {
     String deleteProductFromCart(Long cartId, Long productId);
 
     void updateProductInCarts(Long cartId, Long productId);
+
+    CartRepriceResultDTO repriceAllCarts();
 }
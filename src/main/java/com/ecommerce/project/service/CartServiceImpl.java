@@ -2,28 +2,33 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.CartMapper;
 import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.model.CartItem;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.payload.CartDTO;
-import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.CartLineView;
+import com.ecommerce.project.payload.CartRepriceResultDTO;
 import com.ecommerce.project.repositories.CartItemRepository;
 import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
 import com.ecommerce.project.util.AuthUtil;
-import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.DeleteMapping;
 
 import java.util.List;
-import java.util.stream.Stream;
 
+/*
+  Mutations of a user's cart run one at a time per user, under CartLocks. Double clicks and parallel tabs can't
+  create a second cart, add a line twice or lose a total update; different users mostly hold different stripes
+  and don't wait on each other.
+*/
 @Service
 public class CartServiceImpl implements CartService{
     @Autowired
-    ModelMapper modelMapper;
+    CartMapper cartMapper;
 
     @Autowired
     CartRepository cartRepository;
@@ -31,18 +36,35 @@ public class CartServiceImpl implements CartService{
     @Autowired
     ProductRepository productRepository;
 
+    @Autowired
+    UserRepository userRepository;
+
     @Autowired
     CartItemRepository cartItemRepository;
 
     @Autowired
     AuthUtil authUtil;
 
+    @Autowired
+    CartPricing cartPricing;
+
+    @Autowired
+    CartWriteBehindStore cartWriteBehindStore;
+
+    @Autowired
+    CartLocks cartLocks;
 
     @Override
     public CartDTO addProductToCart(Long productId, Integer quantity) {
-        Cart cart  = createCart();
+        Long userId = authUtil.loggedInUserId();
+        return cartLocks.withUserLock(userId, () ->
+                cartLocks.inTransaction(() -> addProductToCart(userId, productId, quantity)));
+    }
 
-        Product product = productRepository.findById(productId)
+    private CartDTO addProductToCart(Long userId, Long productId, Integer quantity) {
+        Cart cart  = createCart(userId);
+
+        Product product = productRepository.findActiveById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
 
         CartItem cartItem = cartItemRepository.findCartItemsByProductIdAndCartId(cart.getCartId(), productId);
@@ -64,92 +86,82 @@ public class CartServiceImpl implements CartService{
 
         newCartItem.setProduct(product);
         newCartItem.setCart(cart);
-        newCartItem.setQuantity(quantity);
         newCartItem.setDiscount(product.getDiscount());
-        newCartItem.setProductPrice(product.getSpecialPrice());
+        cartPricing.setLine(cart, newCartItem, product.getSpecialPrice(), quantity);
 
         cartItemRepository.save(newCartItem);
 
         product.setQuantity(product.getQuantity());
 
-        cart.setTotalPrice(cart.getTotalPrice() + (product.getSpecialPrice() * quantity));
-
         cartRepository.save(cart);
 
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-        List<CartItem> cartItems = cart.getCartItems();
-
-        Stream<ProductDTO> productStream = cartItems.stream().map(item -> {
-            ProductDTO map = modelMapper.map(item.getProduct(), ProductDTO.class);
-            map.setQuantity(item.getQuantity());
-            return map;
-        });
-
-        cartDTO.setProducts(productStream.toList());
-
-        return cartDTO;
+        return cartMapper.toCartDTO(cart);
     }
 
-    private Cart createCart(){
-        Cart userCart = cartRepository.findCartByEmail(authUtil.loggedInEmail());
+    private Cart createCart(Long userId){
+        Cart userCart = cartRepository.findCartByUserId(userId);
         if(userCart!=null)return userCart;
 
         Cart cart = new Cart();
-        cart.setTotalPrice(0.00);
-        cart.setUser(authUtil.loggedInUser());
+        cart.setUser(userRepository.getReferenceById(userId));
         return cartRepository.save(cart);
     }
     @Override
     public List<CartDTO> getAllCarts() {
+        return cartLocks.acrossCarts(() -> {
+            List<Cart> carts = cartRepository.findAll();
+            if(carts.isEmpty()){
+                throw new APIException("No Cart Exists!!");
+            }
+            List<CartDTO> cartDTOs = carts.stream().map(cartMapper::toCartDTO).toList();
+
+            return cartDTOs;
+        });
+    }
 
-        List<Cart> carts = cartRepository.findAll();
-        if(carts.isEmpty()){
-            throw new APIException("No Cart Exists!!");
-        }
-        List<CartDTO> cartDTOs = carts.stream().map(cart -> {
-            CartDTO cartDTO = modelMapper.map(cart,CartDTO.class);
-
-            List<ProductDTO> products = cart.getCartItems().stream().
-                    map(cartItem -> {
-                        ProductDTO product = modelMapper.map(cartItem.getProduct(),ProductDTO.class);
-                        product.setQuantity(cartItem.getQuantity());
-                        return product;
-                    }).toList();
+    @Override
+    public CartDTO getCart(String emailId, Long cartId) {
+        Long userId = cartRepository.findUserIdByCartId(cartId);
+        if(userId == null)throw new ResourceNotFoundException("Cart","cartId",cartId);
 
-            cartDTO.setProducts(products);
-            return cartDTO;
-        }).toList();
+        return cartLocks.withUserLock(userId, () -> {
+            Cart cart = cartRepository.findCartByEmailAndCartId(emailId,cartId);
+            if(cart == null)throw new ResourceNotFoundException("Cart","cartId",cartId);
 
-        return cartDTOs;
+            return cartMapper.toCartDTO(cart);
+        });
     }
 
     @Override
-    public CartDTO getCart(String emailId, Long cartId) {
-        Cart cart = cartRepository.findCartByEmailAndCartId(emailId,cartId);
-        if(cart == null)throw new ResourceNotFoundException("Cart","cartId",cartId);
-
-        CartDTO cartDTO = modelMapper.map(cart,CartDTO.class);
-        cart.getCartItems().forEach(c -> c.getProduct().setQuantity(c.getQuantity()));
+    public CartDTO getUserCart(Long userId) {
+        CartDTO held = cartWriteBehindStore.getCart(userId);
+        if(held != null)return held;
 
-        List<ProductDTO> products = cart.getCartItems().stream().map(cartItem ->
-                modelMapper.map(cartItem.getProduct(),ProductDTO.class)).toList();
+        List<CartLineView> lines = cartRepository.findCartViewByUserId(userId);
+        if(lines.isEmpty())throw new ResourceNotFoundException("Cart","userId",userId);
 
-        cartDTO.setProducts(products);
-        return cartDTO;
+        return cartMapper.toCartDTO(lines);
     }
 
-    @Transactional
+    // A click the write-behind store answers from memory doesn't take a connection
     @Override
     public CartDTO updateProductQuantityIncart(Long productId, Integer operation) {
-        String emailId = authUtil.loggedInEmail();
-        Cart userCart = cartRepository.findCartByEmail(emailId);
+        Long userId = authUtil.loggedInUserId();
+        CartDTO held = cartWriteBehindStore.updateQuantity(userId, productId, operation);
+        if(held != null)return held;
+
+        return cartLocks.withUserLock(userId, () ->
+                cartLocks.inTransaction(() -> updateProductQuantityInDatabase(userId, productId, operation)));
+    }
+
+    private CartDTO updateProductQuantityInDatabase(Long userId, Long productId, Integer operation) {
+        Cart userCart = cartRepository.findCartByUserId(userId);
         Long cartId = userCart.getCartId();
 
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart","cartId",cartId));
 
-        Product product = productRepository.findById(productId)
+        Product product = productRepository.findActiveById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product","productId",productId));
 
         if (product.getQuantity() == 0) {
@@ -172,14 +184,12 @@ public class CartServiceImpl implements CartService{
             throw new APIException("Product Quantity can't be negative!!");
         }
         if(quantity==0){
-            System.out.println("Yes");
-            deleteProductFromCart(cartId,productId);
+            removeProductFromCart(cartId,productId);
         }
         else{
-        cartItem.setQuantity(cartItem.getQuantity()+operation);
-        cartItem.setProductPrice(product.getSpecialPrice());
+        // the whole line is repriced at the current price, not just the added units
+        cartPricing.setLine(cart, cartItem, product.getSpecialPrice(), quantity);
         cartItem.setDiscount(product.getDiscount());
-        cart.setTotalPrice(cart.getTotalPrice()+ (product.getSpecialPrice()*operation));
         cartRepository.save(cart);
         cartItemRepository.save(cartItem);
         }
@@ -187,30 +197,26 @@ public class CartServiceImpl implements CartService{
 //        if(updatedItem.getQuantity() == 0){
 //            cartItemRepository.deleteById(updatedItem.getCartItemId());
 //        }
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-
-        List<ProductDTO> productDTOS = cart.getCartItems().stream().map(item -> {
-            ProductDTO productDTO = modelMapper.map(item.getProduct(), ProductDTO.class);
-            productDTO.setQuantity(item.getQuantity());
-            return productDTO;
-        }).toList();
-
-        cartDTO.setProducts(productDTOS);
-
-        return cartDTO;
+        return cartMapper.toCartDTO(cart);
     }
 
-    @Transactional
     @Override
     public String deleteProductFromCart(Long cartId, Long productId) {
+        Long userId = cartRepository.findUserIdByCartId(cartId);
+        if(userId == null)throw new ResourceNotFoundException("Cart","cartId",cartId);
+
+        return cartLocks.withUserLock(userId, () ->
+                cartLocks.inTransaction(() -> removeProductFromCart(cartId, productId)));
+    }
 
+    private String removeProductFromCart(Long cartId, Long productId) {
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart","cartId",cartId));
 
         CartItem cartItem = cartItemRepository.findCartItemsByProductIdAndCartId(cartId,productId);
         if(cartItem==null)throw new ResourceNotFoundException("Product","productId",productId);
 
-        cart.setTotalPrice(cart.getTotalPrice()-(cartItem.getQuantity()*cartItem.getProductPrice()));
+        cartPricing.removeLine(cart, cartItem);
         cartItemRepository.deleteCartItemByProductIdAndCartId(cartId,productId);
         cartRepository.save(cart);
         return "Product "+cartItem.getProduct().getProductName()+" removed from Cart!!";
@@ -218,22 +224,36 @@ public class CartServiceImpl implements CartService{
 
     @Override
     public void updateProductInCarts(Long cartId, Long productId) {
+       Long userId = cartRepository.findUserIdByCartId(cartId);
+       if(userId == null)throw new ResourceNotFoundException("Cart","cartId",cartId);
+
+       cartLocks.withUserLock(userId, () -> cartLocks.inTransaction(() -> {
+           repriceProductInCart(cartId, productId);
+           return null;
+       }));
+    }
+
+    private void repriceProductInCart(Long cartId, Long productId) {
        Cart cart = cartRepository.findById(cartId)
                .orElseThrow(() -> new ResourceNotFoundException("Cart","cartId",cartId));
 
-       Product product = productRepository.findById(productId)
+       Product product = productRepository.findActiveById(productId)
                .orElseThrow(() -> new ResourceNotFoundException("Product","productId",productId));
 
-       CartItem cartItem = cartItemRepository.findCartItemsByProductIdAndCartId(productId,cartId);
+       CartItem cartItem = cartItemRepository.findCartItemsByProductIdAndCartId(cartId,productId);
 
        if(cartItem == null) throw new APIException("Product "+product.getProductName() +" not available in the cart!!!");
 
-       double cartPrice = cart.getTotalPrice() - (cartItem.getProductPrice()*cartItem.getQuantity());
-       cartItem.setProductPrice(product.getSpecialPrice());
-       cartPrice+=(cartItem.getProductPrice()*cartItem.getQuantity());
-       cart.setTotalPrice(cartPrice);
+       cartPricing.setLine(cart, cartItem, product.getSpecialPrice(), cartItem.getQuantity());
+       cartItem.setDiscount(product.getDiscount());
 
        cartItemRepository.save(cartItem);
+       cartRepository.save(cart);
+    }
+
+    @Override
+    public CartRepriceResultDTO repriceAllCarts() {
+        return cartLocks.acrossCarts(cartPricing::repriceAllCarts);
     }
 
 }
@@ -0,0 +1,324 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.service.CartJournal.Change;
+import com.ecommerce.project.util.Money;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+  Optional write-behind storage for cart quantities (project.cart.write-behind.enabled). A user's cart is read into
+  memory on their first +1/-1; further clicks change it there, are appended to the CartJournal before they are
+  answered, and reach carts/cart_items every flush-ms in one batch that writes only each line's latest quantity.
+  Stock is checked against the product quantity read with the cart; placing the order reserves it for real.
+  A held cart is only touched under its user's CartLocks lock; the batch takes the locks of the users it writes.
+  Every other cart path (adding, removing, checkout, repricing) goes through CartLocks, which has the carts it
+  touches written and dropped from memory first.
+*/
+@Component
+public class CartWriteBehindStore implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteBehindStore.class);
+    private static final int WRITE_ATTEMPTS = 5;
+
+    // quantity is the quantity in the cart; unitPriceMinor is what the line is priced at
+    private static class Line {
+        final ProductDTO product;
+        final int stock;
+        long unitPriceMinor;
+
+        Line(ProductDTO product, int stock, long unitPriceMinor) {
+            this.product = product;
+            this.stock = stock;
+            this.unitPriceMinor = unitPriceMinor;
+        }
+    }
+
+    private static class CartState {
+        final Long cartId;
+        long totalPriceMinor;
+        final Map<Long, Line> lines = new LinkedHashMap<>();
+        // latest change per product not in the database yet
+        final Map<Long, Change> pending = new HashMap<>();
+        long lastUsed;
+
+        CartState(Long cartId, long totalPriceMinor) {
+            this.cartId = cartId;
+            this.totalPriceMinor = totalPriceMinor;
+        }
+    }
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartLocks cartLocks;
+    // its own transaction, so a caller's rollback can't undo changes the journal already counts as written
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxCarts;
+    private final long idleMs;
+    private final CartJournal journal;
+
+    private final Map<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public CartWriteBehindStore(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                                PlatformTransactionManager transactionManager, CartLocks cartLocks,
+                                @Value("${project.cart.write-behind.enabled:false}") boolean enabled,
+                                @Value("${project.cart.write-behind.journal-dir:cart-journal/}") String journalDir,
+                                @Value("${project.cart.write-behind.journal-sync:true}") boolean journalSync,
+                                @Value("${project.cart.write-behind.max-carts:10000}") int maxCarts,
+                                @Value("${project.cart.write-behind.idle-ms:300000}") long idleMs) throws IOException {
+        this(cartRepository, cartItemRepository, transactionManager, cartLocks,
+                enabled ? new CartJournal(Path.of(journalDir), journalSync) : null, maxCarts, idleMs);
+    }
+
+    // Without a journal the store is off
+    CartWriteBehindStore(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                         PlatformTransactionManager transactionManager, CartLocks cartLocks, CartJournal journal,
+                         int maxCarts, long idleMs) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.cartLocks = cartLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = journal != null;
+        this.maxCarts = maxCarts;
+        this.idleMs = idleMs;
+        this.journal = journal;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Changes a previous run acknowledged but never wrote go to the database before any request is served
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) return;
+        List<Change> recovered = journal.recovered();
+        write(recovered);
+        journal.compact();
+        if (!recovered.isEmpty()) logger.info("Replayed {} cart changes from the journal", recovered.size());
+    }
+
+    // Null when the cart is not held here (mode off, store full, product not in it): the caller takes the database
+    // path, and CartLocks.withUserLock writes what is held here before it
+    public CartDTO updateQuantity(Long userId, Long productId, int operation) {
+        if (!enabled) return null;
+        return cartLocks.holdingUserLock(userId, () -> {
+            CartState cart = carts.get(userId);
+            if (cart == null) {
+                if (carts.size() >= maxCarts) return null;
+                cart = load(userId);
+                carts.put(userId, cart);
+            }
+            cart.lastUsed = System.currentTimeMillis();
+            Line line = cart.lines.get(productId);
+            return line == null ? null : update(userId, cart, productId, line, operation);
+        });
+    }
+
+    public CartDTO getCart(Long userId) {
+        if (!enabled) return null;
+        return cartLocks.holdingUserLock(userId, () -> {
+            CartState cart = carts.get(userId);
+            return cart == null ? null : toCartDTO(cart);
+        });
+    }
+
+    // Called through CartLocks: each writes the pending changes of the carts it names and drops them from memory
+
+    // true if anything had to be written
+    boolean flushUser(Long userId) {
+        if (!enabled || !carts.containsKey(userId)) return false;
+        return cartLocks.holdingUserLock(userId, () -> flushAndEvict(List.of(userId)));
+    }
+
+    void flushAll() {
+        if (!enabled || carts.isEmpty()) return;
+        List<Long> userIds = List.copyOf(carts.keySet());
+        cartLocks.holdingUserLocks(userIds, () -> flushAndEvict(userIds));
+    }
+
+    // The batch: carts stay in memory, their users' clicks wait while it writes them
+    @Scheduled(fixedDelayString = "${project.cart.write-behind.flush-ms:1000}")
+    public void flush() {
+        if (!enabled) return;
+        try {
+            List<Long> userIds = List.copyOf(dirty);
+            cartLocks.holdingUserLocks(userIds, () -> {
+                List<CartState> batch = held(userIds);
+                write(batch.stream().flatMap(cart -> cart.pending.values().stream()).toList());
+                batch.forEach(cart -> cart.pending.clear());
+                userIds.forEach(dirty::remove);
+                return null;
+            });
+            // a click appended while the batch ran keeps its segment until a later batch writes it
+            journal.compact();
+            evictIdle();
+        } catch (RuntimeException e) {
+            logger.error("Writing pending cart changes failed, retrying in the next batch: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) return;
+        flush();
+        journal.close();
+    }
+
+    private CartState load(Long userId) {
+        Cart cart = cartRepository.findCartByUserId(userId);
+        if (cart == null) throw new ResourceNotFoundException("Cart", "userId", userId);
+        CartState state = new CartState(cart.getCartId(), cart.getTotalPriceMinor());
+        for (CartItem cartItem : cartItemRepository.findByCartIdWithProduct(cart.getCartId())) {
+            Product product = cartItem.getProduct();
+            ProductDTO productDTO = new ProductDTO(product.getProductId(), product.getProductName(), product.getImage(),
+                    product.getDescription(), cartItem.getQuantity(), product.getPrice(),
+                    product.getDiscount(), product.getSpecialPrice());
+            state.lines.put(product.getProductId(), new Line(productDTO, product.getQuantity(), cartItem.getProductPriceMinor()));
+        }
+        return state;
+    }
+
+    // Same checks and pricing as CartServiceImpl.updateProductQuantityIncart
+    private CartDTO update(Long userId, CartState cart, Long productId, Line line, int operation) {
+        ProductDTO product = line.product;
+        if (line.stock == 0) {
+            throw new APIException(product.getProductName() + " is not available");
+        }
+        int quantity = product.getQuantity() + operation;
+        if (operation > 0 && line.stock < quantity) {
+            throw new APIException("Please, make an order of the " + product.getProductName()
+                    + " less than or equal to the quantity " + line.stock + ".");
+        }
+        if (quantity < 0) {
+            throw new APIException("Product Quantity can't be negative!!");
+        }
+
+        // journal first: a change is answered only once it survives a crash
+        Change change = journal.append(cart.cartId, productId, quantity);
+        long before = Math.multiplyExact(line.unitPriceMinor, (long) product.getQuantity());
+        long after = 0;
+        if (quantity == 0) {
+            cart.lines.remove(productId);
+        } else {
+            line.unitPriceMinor = Money.toMinor(product.getSpecialPrice());
+            product.setQuantity(quantity);
+            after = Math.multiplyExact(line.unitPriceMinor, (long) quantity);
+        }
+        cart.totalPriceMinor = Math.addExact(cart.totalPriceMinor, after - before);
+        cart.pending.put(productId, change);
+        dirty.add(userId);
+        return toCartDTO(cart);
+    }
+
+    // Under the users' locks; true if anything had to be written
+    private boolean flushAndEvict(List<Long> userIds) {
+        List<Change> changes = held(userIds).stream().flatMap(cart -> cart.pending.values().stream()).toList();
+        write(changes);
+        userIds.forEach(userId -> {
+            carts.remove(userId);
+            dirty.remove(userId);
+        });
+        return !changes.isEmpty();
+    }
+
+    private List<CartState> held(List<Long> userIds) {
+        return userIds.stream().map(carts::get).filter(Objects::nonNull).toList();
+    }
+
+    // Latest quantities of lines across carts, in one transaction: the lines and carts in one query each, then
+    // batched updates and one delete. Lines no longer in the database (ordered, product deleted) are skipped.
+    private void write(List<Change> changes) {
+        if (changes.isEmpty()) return;
+        Map<Long, Map<Long, Change>> byCart = new HashMap<>();
+        for (Change change : changes) {
+            byCart.computeIfAbsent(change.cartId(), cartId -> new HashMap<>()).put(change.productId(), change);
+        }
+
+        // a bulk reprice committed in between bumps the carts' version: read them again and write on top
+        CartLocks.retryingConflicts(WRITE_ATTEMPTS, () -> transactionTemplate.execute(status -> {
+            Map<Long, List<CartItem>> kept = new HashMap<>();
+            List<CartItem> removed = new ArrayList<>();
+            for (CartItem cartItem : cartItemRepository.findByCartIdInWithProduct(byCart.keySet())) {
+                Long cartId = cartItem.getCart().getCartId();
+                Product product = cartItem.getProduct();
+                Change change = byCart.get(cartId).get(product.getProductId());
+                if (change != null && change.quantity() == 0) {
+                    removed.add(cartItem);
+                    continue;
+                }
+                if (change != null) {
+                    // the line is repriced at the current price, as on the database path
+                    cartItem.setQuantity(change.quantity());
+                    cartItem.setProductPriceMinor(Money.toMinor(product.getSpecialPrice()));
+                    cartItem.setDiscount(product.getDiscount());
+                }
+                kept.computeIfAbsent(cartId, id -> new ArrayList<>()).add(cartItem);
+            }
+            if (!removed.isEmpty()) cartItemRepository.deleteAllInBatch(removed);
+            for (Cart cart : cartRepository.findAllById(byCart.keySet())) {
+                cart.setTotalPriceMinor(CartPricing.totalOf(kept.getOrDefault(cart.getCartId(), List.of())));
+            }
+            return null;
+        }));
+
+        byCart.forEach((cartId, lines) -> journal.markWritten(cartId,
+                lines.values().stream().mapToLong(Change::seq).max().orElseThrow()));
+    }
+
+    private void evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleMs;
+        for (Long userId : List.copyOf(carts.keySet())) {
+            cartLocks.holdingUserLock(userId, () -> {
+                CartState cart = carts.get(userId);
+                if (cart != null && cart.pending.isEmpty() && cart.lastUsed < idleSince) carts.remove(userId);
+                return null;
+            });
+        }
+    }
+
+    private static CartDTO toCartDTO(CartState cart) {
+        CartDTO cartDTO = new CartDTO();
+        cartDTO.setCartId(cart.cartId);
+        cartDTO.setTotalPrice(Money.toMajor(cart.totalPriceMinor));
+        // copies: the response is written after the lock is released
+        for (Line line : cart.lines.values()) {
+            ProductDTO product = line.product;
+            cartDTO.getProducts().add(new ProductDTO(product.getProductId(), product.getProductName(), product.getImage(),
+                    product.getDescription(), product.getQuantity(), product.getPrice(), product.getDiscount(),
+                    product.getSpecialPrice()));
+        }
+        return cartDTO;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.List;
 
 public interface CategoryService {
     CategoryResponse getAllCategories(Integer pageNumber,Integer pageSize,String sortBy,String sortOrder);
+    CategoryResponse getCategoriesAfter(String after,Integer pageSize,String sortBy,String sortOrder);
     CategoryDTO createCategory(CategoryDTO categoryDTO);
 
     CategoryDTO deleteCategory(Long categoryId);
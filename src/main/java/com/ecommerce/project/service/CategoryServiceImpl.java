@@ -2,29 +2,45 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.CategoryMapper;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.payload.CategoryDTO;
 import com.ecommerce.project.payload.CategoryResponse;
 import com.ecommerce.project.repositories.CategoryRepository;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 
 @Service
 public class CategoryServiceImpl implements CategoryService{
 
+    // properties usable as keyset, with the type their cursor value converts back to
+    private static final Map<String,Class<?>> KEYSET_SORT_KEYS = Map.of(
+            "categoryId",Long.class,
+            "categoryName",String.class);
+
     @Autowired
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
 
     @Override
     public CategoryResponse getAllCategories(Integer pageNumber,Integer pageSize,String sortBy,String sortOrder) {
@@ -40,7 +56,7 @@ public class CategoryServiceImpl implements CategoryService{
             throw new APIException("No Category Created Till Now!!");
 
         List<CategoryDTO> categoryDTOS = categories.stream()
-                .map(category -> modelMapper.map(category,CategoryDTO.class))
+                .map(categoryMapper::toCategoryDTO)
                 .toList();
 
         CategoryResponse categoryResponse = new CategoryResponse();
@@ -53,15 +69,36 @@ public class CategoryServiceImpl implements CategoryService{
         return categoryResponse;
     }
 
+    @Override
+    public CategoryResponse getCategoriesAfter(String after,Integer pageSize,String sortBy,String sortOrder) {
+        ScrollPosition position = KeysetCursor.scrollPosition(after,sortBy,sortOrder,"categoryId",KEYSET_SORT_KEYS);
+        Window<Category> categoryWindow = categoryRepository.findAllBy(position,
+                KeysetCursor.sort(sortBy,sortOrder),Limit.of(pageSize));
+
+        if(categoryWindow.isEmpty() && position.isInitial())
+            throw new APIException("No Category Created Till Now!!");
+
+        List<CategoryDTO> categoryDTOS = categoryWindow.getContent().stream()
+                .map(categoryMapper::toCategoryDTO)
+                .toList();
+
+        CategoryResponse categoryResponse = new CategoryResponse();
+        categoryResponse.setContent(categoryDTOS);
+        categoryResponse.setPageSize(pageSize);
+        categoryResponse.setLastPage(!categoryWindow.hasNext());
+        categoryResponse.setNextCursor(KeysetCursor.nextCursor(categoryWindow,sortBy,sortOrder,"categoryId"));
+        return categoryResponse;
+    }
+
     @Override
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
-        Category category = modelMapper.map(categoryDTO,Category.class);
+        Category category = categoryMapper.toCategory(categoryDTO);
         Category newCategory = categoryRepository.findByCategoryName(category.getCategoryName());
         if(newCategory!=null){
             throw new APIException(String.format("Category with name %s already Exists!!",category.getCategoryName()));
         }
         Category savedCategory= categoryRepository.save(category);
-        CategoryDTO savedCategoryDTO = modelMapper.map(savedCategory,CategoryDTO.class);
+        CategoryDTO savedCategoryDTO = categoryMapper.toCategoryDTO(savedCategory);
 
         System.out.println("New Category Added Successfully");
         return savedCategoryDTO;
@@ -72,18 +109,21 @@ public class CategoryServiceImpl implements CategoryService{
         Category category = categoryRepository.findById(categoryId)
                         .orElseThrow(() -> new ResourceNotFoundException("Category","category",categoryId));
         categoryRepository.delete(category);
-        return modelMapper.map(category,CategoryDTO.class);
+        // products of the category are removed along with it
+        productCatalogCache.invalidateAll();
+        productSearchIndex.rebuild();
+        return categoryMapper.toCategoryDTO(category);
     }
 
     @Override
     public CategoryDTO updateCategory(CategoryDTO categoryDTO,Long categoryId) {
-        Category category = modelMapper.map(categoryDTO,Category.class);
+        Category category = categoryMapper.toCategory(categoryDTO);
         Category updatedCategory = categoryRepository.findById(categoryId)
                 .orElseThrow(()-> new ResourceNotFoundException("Category","category",categoryId));
 
         category.setCategoryId(categoryId);
         Category savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory,CategoryDTO.class);
+        return categoryMapper.toCategoryDTO(savedCategory);
     }
 
 }
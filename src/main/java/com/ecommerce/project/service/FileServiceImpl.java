@@ -1,35 +1,65 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.storage.ObjectStorage;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 @Service
 public class FileServiceImpl implements FileService{
+
+    private final ObjectStorage objectStorage;
+
+    public FileServiceImpl(ObjectStorage objectStorage) {
+        this.objectStorage = objectStorage;
+    }
+
     @Override
-    public String uploadImage(String path, MultipartFile file) throws IOException {
+    public String uploadImage(MultipartFile file) throws IOException {
         // File Names of current/original file
         String originalFileName = file.getOriginalFilename();
+        int extensionStart = originalFileName == null ? -1 : originalFileName.lastIndexOf('.');
+        if(extensionStart < 0) throw new APIException("Image file name must have an extension");
+        String extension = originalFileName.substring(extensionStart).toLowerCase();
 
-        //Generate a Unique File Name
-        String randomId = UUID.randomUUID().toString();
-        // mat.jpg ---> 1234 ---> 1234.jpg
-        String fileName = randomId.concat(originalFileName.substring(originalFileName.lastIndexOf('.')));
-        String filePath = path + File.separator +fileName;
+        // Copy to a temp file while hashing, so the upload is read once and never held in memory
+        Path tempFile = Files.createTempFile("upload-", ".tmp");
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
 
-        // check if path exist and create
-        File folder = new File(path);
-        if(!folder.exists()) folder.mkdir();
-
-        // Upload to server
-        Files.copy(file.getInputStream(), Paths.get(filePath));
+        // Named by content: the same picture uploaded twice is stored once
+        // mat.jpg ---> sha-256 of its bytes ---> 9f86d0...0a08.jpg
+        String fileName = HexFormat.of().formatHex(digest.digest()).concat(extension);
+        if(objectStorage.stat(fileName) != null) {
+            Files.delete(tempFile);
+        } else {
+            objectStorage.put(fileName, tempFile, file.getContentType());
+        }
 
         // returning file name
         return fileName;
     }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
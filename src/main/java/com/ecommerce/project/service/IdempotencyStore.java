@@ -0,0 +1,89 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ConflictException;
+import com.ecommerce.project.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/*
+  Responses of requests sent with an Idempotency-Key header, per user and endpoint.
+  The first request with a key runs the action; a retry gets the stored response, and a duplicate arriving
+  while the first is still running waits for it instead of running again, for waitMs at most. Failures are not
+  stored, so the client can retry them with the same key. Running executions are never evicted, or a duplicate
+  arriving after their eviction would run the action a second time.
+*/
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private record Key(Long userId, String endpoint, String idempotencyKey) {
+    }
+
+    // fingerprint of the request the key was first used with; reusing a key for a different request is an error
+    private record Execution(String fingerprint, CompletableFuture<ResponseEntity<?>> response) {
+    }
+
+    private final BoundedCache<Key, Execution> executions;
+    private final long ttlMs;
+    private final long waitMs;
+
+    public IdempotencyStore(@Value("${project.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${project.idempotency.ttl-ms:3600000}") long ttlMs,
+                            @Value("${project.idempotency.wait-ms:10000}") long waitMs) {
+        this.executions = new BoundedCache<>(maxEntries, ttlMs, execution -> execution.response().isDone());
+        this.ttlMs = ttlMs;
+        this.waitMs = waitMs;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String idempotencyKey, Long userId, String endpoint, String fingerprint,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) return action.get();
+
+        Key key = new Key(userId, endpoint, idempotencyKey);
+        Execution execution = new Execution(fingerprint, new CompletableFuture<>());
+        Execution existing = executions.putIfAbsent(key, execution, System.currentTimeMillis() + ttlMs);
+        if (existing != null) {
+            if (!Objects.equals(existing.fingerprint(), fingerprint))
+                throw new APIException("Idempotency-Key " + idempotencyKey + " was already used for a different request");
+            return (ResponseEntity<T>) await(existing.response(), idempotencyKey);
+        }
+
+        try {
+            ResponseEntity<T> response = action.get();
+            execution.response().complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            // completing the future also makes the entry evictable, a failed execution must never stay running
+            executions.remove(key, execution);
+            execution.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // A duplicate holds a request thread while it waits, so it gives up after waitMs; the client retries later
+    private ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> response, String idempotencyKey) {
+        try {
+            return response.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with Idempotency-Key " + idempotencyKey + " is still being processed");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Interrupted while waiting for Idempotency-Key " + idempotencyKey);
+        }
+    }
+}
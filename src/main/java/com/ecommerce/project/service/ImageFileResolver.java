@@ -0,0 +1,88 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.storage.ObjectStorage;
+import com.ecommerce.project.util.BoundedCache;
+import com.ecommerce.project.util.ImageVariant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Pattern;
+
+/*
+  Finds the file behind an /images/<name> request. A variant that has not been generated yet resolves to its
+  original, which is then served without the immutable caching the variant itself would get.
+  Files come from ObjectStorage.localCopy: the image folder itself, or the local cache of the bucket.
+  The smallest variants (thumbnails) are the most requested, so their bytes are kept in a small LRU.
+*/
+@Component
+public class ImageFileResolver {
+
+    // no separators and no "..", so a name can never leave the image folder or address another bucket key
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    public record ImageFile(String fileName, Path path, long length, long lastModified, boolean immutable) {
+
+        // Strong validator: a content-hashed name already identifies its bytes
+        public String etag() {
+            int dot = fileName.lastIndexOf('.');
+            return "\"" + (dot < 0 ? fileName : fileName.substring(0, dot)) + "\"";
+        }
+    }
+
+    private final ObjectStorage objectStorage;
+    private final BoundedCache<String, byte[]> thumbnails;
+    private final int maxCachedFileBytes;
+
+    public ImageFileResolver(ObjectStorage objectStorage,
+                             @Value("${project.image.thumbnail-cache.max-entries:500}") int maxEntries,
+                             @Value("${project.image.thumbnail-cache.max-file-bytes:65536}") int maxCachedFileBytes,
+                             @Value("${project.image.thumbnail-cache.ttl-ms:3600000}") long ttlMs) {
+        this.objectStorage = objectStorage;
+        this.thumbnails = new BoundedCache<>(maxEntries, ttlMs);
+        this.maxCachedFileBytes = maxCachedFileBytes;
+    }
+
+    // Same value resolve(fileName).etag() has when the file exists under its own name, without touching the disk
+    public static String etagOf(String fileName) {
+        return new ImageFile(fileName, null, 0, 0, true).etag();
+    }
+
+    public ImageFile resolve(String fileName) throws IOException {
+        // .tmp files are uploads and variants still being written
+        if (!SAFE_NAME.matcher(fileName).matches() || fileName.endsWith(".tmp")) return null;
+        ImageFile image = stat(fileName, ImageVariant.isImmutable(fileName));
+        if (image != null) return image;
+
+        String original = ImageVariant.originalOf(fileName);
+        return original == null ? null : stat(original, false);
+    }
+
+    // Thumbnail bytes from memory, or null when the file should be streamed from disk
+    public byte[] cachedBytes(ImageFile image) throws IOException {
+        if (!image.immutable() || ImageVariant.of(image.fileName()) != ImageVariant.THUMBNAIL
+                || image.length() > maxCachedFileBytes) return null;
+        byte[] bytes = thumbnails.get(image.fileName());
+        if (bytes == null) {
+            bytes = Files.readAllBytes(image.path());
+            thumbnails.put(image.fileName(), bytes);
+        }
+        return bytes;
+    }
+
+    private ImageFile stat(String fileName, boolean immutable) throws IOException {
+        Path path = objectStorage.localCopy(fileName);
+        if (path == null) return null;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) return null;
+            return new ImageFile(fileName, path, attributes.size(), attributes.lastModifiedTime().toMillis(), immutable);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
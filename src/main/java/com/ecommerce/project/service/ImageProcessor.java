@@ -0,0 +1,162 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.storage.ObjectStorage;
+import com.ecommerce.project.util.ImageVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Generates the ImageVariant copies of an uploaded image on imageTaskExecutor, off the request thread.
+  Variants that already exist are skipped, so re-uploading a known picture costs nothing. Each variant is written
+  to a temp file and handed to ObjectStorage, which stores it atomically, so a half-written variant is never served.
+*/
+@Component
+public class ImageProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(ImageProcessor.class);
+
+    private final ObjectStorage objectStorage;
+    private final ThreadPoolTaskExecutor imageTaskExecutor;
+
+    // images queued or being processed, so the same upload is never processed twice at once
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public ImageProcessor(ObjectStorage objectStorage,
+                          @Qualifier("imageTaskExecutor") ThreadPoolTaskExecutor imageTaskExecutor) {
+        this.objectStorage = objectStorage;
+        this.imageTaskExecutor = imageTaskExecutor;
+    }
+
+    public void submit(String fileName) {
+        if (!ImageVariant.isContentHashed(fileName) || hasAllVariants(fileName)) return;
+        if (!inFlight.add(fileName)) return;
+        try {
+            imageTaskExecutor.execute(() -> {
+                try {
+                    generateVariants(fileName);
+                } finally {
+                    inFlight.remove(fileName);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // the original is still served; the variants are generated on the next upload of this picture
+            inFlight.remove(fileName);
+            failures.incrementAndGet();
+            logger.warn("Image queue is full, no variants for {}", fileName);
+        }
+    }
+
+    public boolean hasAllVariants(String fileName) {
+        try {
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (objectStorage.stat(variant.fileName(fileName)) == null) return false;
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public long getGenerated() {
+        return generated.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    void generateVariants(String fileName) {
+        try {
+            Path originalFile = objectStorage.localCopy(fileName);
+            BufferedImage original = originalFile == null ? null : ImageIO.read(originalFile.toFile());
+            if (original == null) {
+                failures.incrementAndGet();
+                logger.warn("{} is not a readable image, no variants generated", fileName);
+                return;
+            }
+            String format = ImageVariant.formatOf(fileName);
+            for (ImageVariant variant : ImageVariant.values()) {
+                String key = variant.fileName(fileName);
+                if (objectStorage.stat(key) != null) continue;
+                BufferedImage resized = resize(original, variant.getMaxDimension(), hasAlpha(format));
+                Path tempFile = Files.createTempFile("variant-", ".tmp");
+                try {
+                    if (!ImageIO.write(resized, format, tempFile.toFile()))
+                        throw new IOException("No " + format + " writer");
+                    objectStorage.put(key, tempFile, MediaTypeFactory.getMediaType(key)
+                            .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+                generated.incrementAndGet();
+            }
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            logger.error("Generating variants of {} failed: {}", fileName, e.getMessage());
+        }
+    }
+
+    // Fits the image into maxDimension x maxDimension. Large reductions are done in halving steps,
+    // a single bilinear step from a big original drops most of its pixels and looks jagged.
+    static BufferedImage resize(BufferedImage original, int maxDimension, boolean keepAlpha) {
+        int width = original.getWidth();
+        int height = original.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = original;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            if (scale == 1.0) {
+                width = targetWidth;
+                height = targetHeight;
+            }
+            current = draw(current, width, height, keepAlpha);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean keepAlpha) {
+        BufferedImage target = new BufferedImage(width, height,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!keepAlpha) {
+                // JPEG has no alpha channel: transparent areas become white instead of black
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static boolean hasAlpha(String format) {
+        return "png".equals(format) || "gif".equals(format);
+    }
+}
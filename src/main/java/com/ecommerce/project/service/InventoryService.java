@@ -0,0 +1,9 @@
+package com.ecommerce.project.service;
+
+import java.util.Map;
+
+public interface InventoryService {
+    void reserve(Map<Long, Integer> quantities);
+
+    void release(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,84 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+  Stock reservation as conditional decrements: a line only succeeds if the row still holds enough stock
+  at the moment it is updated, so concurrent checkouts can never take a product below zero.
+*/
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final String RESERVE_SQL =
+            "UPDATE products SET quantity = quantity - ? WHERE product_id = ? AND quantity >= ?";
+    private static final String RELEASE_SQL =
+            "UPDATE products SET quantity = quantity + ? WHERE product_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // All lines go in one JDBC batch. Any short line fails the whole reservation, and MANDATORY makes sure
+    // there is a caller transaction to roll back the lines that did succeed.
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void reserve(Map<Long, Integer> quantities) {
+        // ascending product id, so concurrent checkouts lock rows in the same order and cannot deadlock
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setLong(2, line.getKey());
+                ps.setInt(3, line.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        List<Long> unavailable = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) unavailable.add(lines.get(i).getKey());
+        }
+        if (!unavailable.isEmpty())
+            throw new APIException("Not enough stock for products " + unavailable);
+    }
+
+    // Gives back what reserve took, for an order that is not going to be fulfilled
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void release(Map<Long, Integer> quantities) {
+        // same row order as reserve
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+
+        jdbcTemplate.batchUpdate(RELEASE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setLong(2, line.getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,204 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderOutboxEvent;
+import com.ecommerce.project.payload.OrderPipelineStatsDTO;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.OrderItemRepository;
+import com.ecommerce.project.repositories.OrderOutboxRepository;
+import com.ecommerce.project.repositories.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Second stage of checkout. placeOrder writes the order (pending) and an outbox row; this worker drains the outbox
+  in batches on orderTaskExecutor and finishes each order: ordered lines leave the cart and the order is accepted.
+  Finishing an order and marking its outbox row processed commit together, so after a crash unprocessed rows are
+  simply picked up again. With project.order.async.enabled=false placeOrder applies the event inline instead.
+  Either way the cart is changed under its user's CartLocks lock.
+  An event failing project.order.outbox.max-attempts times is given up: its order fails and the stock it reserved
+  is released. The cart keeps its lines, so the user can order them again.
+*/
+@Component
+public class OrderOutboxWorker {
+    private static final Logger logger = LoggerFactory.getLogger(OrderOutboxWorker.class);
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CartLocks cartLocks;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    @Qualifier("orderTaskExecutor")
+    private ThreadPoolTaskExecutor orderTaskExecutor;
+
+    @Value("${project.order.async.enabled:true}")
+    private boolean async;
+
+    @Value("${project.order.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${project.order.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    // events handed to the executor and not finished yet, so a poll never dispatches one twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    // Failed events stay in the outbox for inspection but no longer block the cart
+    public boolean hasPendingOrder(Long cartId) {
+        return orderOutboxRepository.existsByCartIdAndProcessedAtIsNullAndFailedAtIsNull(cartId);
+    }
+
+    @Scheduled(fixedDelayString = "${project.order.outbox.poll-ms:500}")
+    public void poll() {
+        if (!async) return;
+        int room = Math.min(batchSize, orderTaskExecutor.getQueueCapacity() - orderTaskExecutor.getQueueSize());
+        if (room <= 0) return;
+
+        // NOT IN () is not valid SQL, so an id that never exists stands in for "nothing in flight"
+        Set<Long> excluded = inFlight.isEmpty() ? Set.of(-1L) : Set.copyOf(inFlight);
+        List<Long> ids = orderOutboxRepository.findPendingIds(excluded, Limit.of(room));
+        for (Long id : ids) {
+            if (!inFlight.add(id)) continue;
+            try {
+                orderTaskExecutor.execute(() -> process(id));
+            } catch (TaskRejectedException e) {
+                inFlight.remove(id);
+                break;
+            }
+        }
+    }
+
+    private void process(Long id) {
+        try {
+            // the cart's lines are deleted under its user's lock, like any other change of the cart
+            Long userId = orderOutboxRepository.findCartUserIdById(id);
+            Runnable finish = () -> transactionTemplate.executeWithoutResult(status ->
+                    orderOutboxRepository.findByIdForUpdate(id).ifPresent(this::apply));
+            if (userId == null) {
+                finish.run();
+            } else {
+                // a click since the order may have read the cart into the write-behind store, which would keep
+                // showing the ordered lines once they are gone: the lock writes and drops it first
+                cartLocks.withUserLock(userId, () -> {
+                    finish.run();
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            logger.error("Order outbox event {} failed: {}", id, e.getMessage());
+            transactionTemplate.executeWithoutResult(status ->
+                    orderOutboxRepository.findByIdForUpdate(id).ifPresent(event -> recordFailure(event, e)));
+        } finally {
+            inFlight.remove(id);
+        }
+    }
+
+    // Runs in the caller's transaction. Replaying an event that was already processed changes nothing.
+    public void apply(OrderOutboxEvent event) {
+        if (event.getProcessedAt() != null || event.getFailedAt() != null) return;
+
+        Order order = orderRepository.findById(event.getOrderId())
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "orderId", event.getOrderId()));
+        if (AppConstants.ORDER_STATUS_PENDING.equals(order.getOrderStatus())) {
+            // only the ordered lines: the user may have added more to the cart since
+            List<Long> productIds = orderItemRepository.findProductIdsByOrderId(order.getOrderId());
+            cartItemRepository.deleteByCartIdAndProductIdIn(event.getCartId(), productIds);
+            cartRepository.recomputeTotalPrice(event.getCartId());
+            order.setOrderStatus(AppConstants.ORDER_STATUS_ACCEPTED);
+        }
+        event.setProcessedAt(Instant.now());
+        processed.incrementAndGet();
+    }
+
+    private void recordFailure(OrderOutboxEvent event, RuntimeException e) {
+        if (event.getProcessedAt() != null || event.getFailedAt() != null) return;
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(e.getMessage() == null ? e.getClass().getName() : e.getMessage());
+        if (event.getAttempts() < maxAttempts) return;
+
+        event.setFailedAt(Instant.now());
+        orderRepository.findById(event.getOrderId())
+                .filter(order -> AppConstants.ORDER_STATUS_PENDING.equals(order.getOrderStatus()))
+                .ifPresent(this::fail);
+    }
+
+    // Commits with the event's failed mark, so the stock is given back exactly once
+    private void fail(Order order) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        order.getOrderItems().forEach(item ->
+                quantities.merge(item.getProduct().getProductId(), item.getQuantity(), Integer::sum));
+        inventoryService.release(quantities);
+        order.setOrderStatus(AppConstants.ORDER_STATUS_FAILED);
+        logger.warn("Order {} failed after {} attempts, its stock was released", order.getOrderId(), maxAttempts);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productCatalogCache.onProductsChanged(quantities.keySet());
+            }
+        });
+    }
+
+    public OrderPipelineStatsDTO stats() {
+        return new OrderPipelineStatsDTO(async,
+                orderOutboxRepository.countByProcessedAtIsNullAndFailedAtIsNull(),
+                orderOutboxRepository.countByFailedAtIsNotNull(),
+                inFlight.size(),
+                orderTaskExecutor.getQueueSize(),
+                orderTaskExecutor.getActiveCount(),
+                processed.get(),
+                errors.get());
+    }
+}
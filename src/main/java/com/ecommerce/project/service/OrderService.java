@@ -1,9 +1,12 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderPipelineStatsDTO;
 import jakarta.transaction.Transactional;
 
 public interface OrderService {
     @Transactional
     OrderDTO placeOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage);
+
+    OrderPipelineStatsDTO getPipelineStats();
 }
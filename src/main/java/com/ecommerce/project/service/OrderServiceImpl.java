@@ -1,20 +1,25 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ConflictException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.OrderMapper;
 import com.ecommerce.project.model.*;
 import com.ecommerce.project.payload.OrderDTO;
-import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.OrderPipelineStatsDTO;
 import com.ecommerce.project.repositories.*;
-import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderServiceImpl implements OrderService{
@@ -35,20 +40,47 @@ public class OrderServiceImpl implements OrderService{
     private OrderItemRepository orderItemRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private InventoryService inventoryService;
 
     @Autowired
-    private CartService cartService;
+    private CartItemRepository cartItemRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private OrderMapper orderMapper;
 
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderOutboxWorker orderOutboxWorker;
+
+    @Autowired
+    private CartPricing cartPricing;
+
+    @Autowired
+    private CartLocks cartLocks;
+
+    // Under the user's cart lock, as every other change of the cart: a click can't slip in between the order and
+    // the cart clearing, nor bring the ordered lines back into the write-behind store
     @Override
-    @Transactional
     public OrderDTO placeOrder(String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage) {
+        Long userId = cartRepository.findUserIdByEmail(emailId);
+        if(userId==null){
+            throw new ResourceNotFoundException("Cart","email",emailId);
+        }
+        // quantities still held by the write-behind store are committed first; the order is placed from those
+        return cartLocks.withUserLock(userId, () ->
+                cartLocks.inTransaction(() -> placeOrder(userId, emailId, addressId, paymentMethod, pgName,
+                        pgPaymentId, pgStatus, pgResponseMessage)));
+    }
+
+    private OrderDTO placeOrder(Long userId, String emailId, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage) {
         //Getting User cart
 
-        Cart cart = cartRepository.findCartByEmail(emailId);
+        Cart cart = cartRepository.findCartByUserId(userId);
         if(cart==null){
             throw new ResourceNotFoundException("Cart","email",emailId);
         }
@@ -56,6 +88,20 @@ public class OrderServiceImpl implements OrderService{
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address","addressId",addressId));
 
+        // the cart keeps its lines until the worker finishes the previous order, don't let them be ordered twice
+        if(orderOutboxWorker.hasPendingOrder(cart.getCartId()))
+            throw new ConflictException("An order for this cart is still being processed");
+
+        List<CartItem> cartItems = cartItemRepository.findByCartIdWithProduct(cart.getCartId());
+        if(cartItems.isEmpty())throw new APIException("Cart is Empty");
+        // the order is charged what its lines add up to, the outbox stage recomputes the cart's own total
+        long totalPriceMinor = cartPricing.verify(cart, cartItems);
+
+        // Take the stock first: the whole order is rejected if any line can't be fulfilled
+        Map<Long,Integer> quantities = new HashMap<>();
+        cartItems.forEach(item -> quantities.merge(item.getProduct().getProductId(), item.getQuantity(), Integer::sum));
+        inventoryService.reserve(quantities);
+
 
         //Create a new order with payment info
 
@@ -63,8 +109,8 @@ public class OrderServiceImpl implements OrderService{
         order.setEmail(emailId);
         order.setOrderDate(LocalDate.now());
         order.setAddress(address);
-        order.setTotalAmount(cart.getTotalPrice());
-        order.setOrderStatus("Order Accepted !");
+        order.setTotalAmount(Money.toMajor(totalPriceMinor));
+        order.setOrderStatus(AppConstants.ORDER_STATUS_PENDING);
 
         Payment payment = new Payment(paymentMethod,pgPaymentId,pgStatus,pgResponseMessage,pgName);
         payment.setOrder(order);
@@ -74,9 +120,6 @@ public class OrderServiceImpl implements OrderService{
         Order savedOrder = orderRepository.save(order);
 
         // Get items from the cart into the order items
-        List<CartItem> cartItems = cart.getCartItems();
-        if(cartItems.isEmpty())throw new APIException("Cart is Empty");
-
         List<OrderItem> orderItems = cartItems
                 .stream().map(cartItem -> {
                     OrderItem orderItem = new OrderItem();
@@ -90,29 +133,28 @@ public class OrderServiceImpl implements OrderService{
 
         orderItems = orderItemRepository.saveAll(orderItems);
 
-        // update product stock
-        List<CartItem> itemsCopy = new ArrayList<>(cart.getCartItems());
-
-        itemsCopy.forEach(item -> {
-            int quantity = item.getQuantity();
-            Product product = item.getProduct();
-
-            // Reduce stock quantity
-            product.setQuantity(product.getQuantity() - quantity);
-
-            // Save product back to the database
-            productRepository.save(product);
-
-            // Remove items from cart
-            cartService.deleteProductFromCart(cart.getCartId(), product.getProductId());
+        // once the new stock is committed: a page read before that would be cached again with the old one
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productCatalogCache.onProductsChanged(quantities.keySet());
+            }
         });
 
+        // Cart clearing and the status change happen in OrderOutboxWorker, inline when async is off
+        OrderOutboxEvent event = new OrderOutboxEvent(savedOrder.getOrderId(), cart.getCartId());
+        if(!orderOutboxWorker.isAsync()) orderOutboxWorker.apply(event);
+        orderOutboxRepository.save(event);
+
 
         // send back the order summary
-        OrderDTO orderDTO = modelMapper.map(savedOrder,OrderDTO.class);
-        List<OrderItemDTO> orderItemDTOS = orderItems.stream()
-                .map(item -> modelMapper.map(item,OrderItemDTO.class)).toList();
-        orderDTO.setOrderItems(orderItemDTOS);
+        OrderDTO orderDTO = orderMapper.toOrderDTO(savedOrder);
+        orderDTO.setOrderItems(orderMapper.toOrderItemDTOs(orderItems));
         return orderDTO;
     }
+
+    @Override
+    public OrderPipelineStatsDTO getPipelineStats() {
+        return orderOutboxWorker.stats();
+    }
 }
@@ -0,0 +1,126 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+@Component
+public class ProductCatalogCache {
+
+    public enum Scope { ALL, CATEGORY, KEYWORD }
+
+    public record PageKey(Scope scope, Long categoryId, String keyword,
+                          Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+
+        public static PageKey all(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+            return new PageKey(Scope.ALL, null, null, pageNumber, pageSize, sortBy, sortOrder.toLowerCase());
+        }
+
+        public static PageKey category(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+            return new PageKey(Scope.CATEGORY, categoryId, null, pageNumber, pageSize, sortBy, sortOrder.toLowerCase());
+        }
+
+        public static PageKey keyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+            return new PageKey(Scope.KEYWORD, null, keyword.toLowerCase(), pageNumber, pageSize, sortBy, sortOrder.toLowerCase());
+        }
+    }
+
+    private final BoundedCache<PageKey, ProductResponse> pages;
+    // bumped before every invalidation, so a page read from the database while one ran is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCatalogCache(@Value("${project.cache.products.max-entries:1000}") int maxEntries,
+                               @Value("${project.cache.products.ttl-ms:60000}") long ttlMs) {
+        this.pages = new BoundedCache<>(maxEntries, ttlMs);
+    }
+
+    public ProductResponse get(PageKey key) {
+        return pages.get(key);
+    }
+
+    // Take before reading a page from the database, and hand to put with it
+    public long generation() {
+        return generation.get();
+    }
+
+    // Dropped when an invalidation ran since the page was read, it may have missed the change
+    public void put(PageKey key, ProductResponse response, long readAt) {
+        if (generation.get() != readAt) return;
+        pages.put(key, response);
+        // an invalidation between the check and the put may have swept the cache before the page was in it
+        if (generation.get() != readAt) pages.remove(key, response);
+    }
+
+    // A new product can land on any page of the listings it belongs to
+    public void onProductAdded(Long categoryId, Predicate<String> matchesKeyword) {
+        invalidate((key, page) -> inScope(key, categoryId, matchesKeyword));
+    }
+
+    // Pages already holding the product go stale; listings that may re-order or start/stop matching go as a whole.
+    // Category pages are always ordered by price first, so any update can move the product between them.
+    // matchesKeyword should accept a keyword matching the product either before or after the update.
+    public void onProductUpdated(Long productId, Long categoryId, Predicate<String> matchesKeyword) {
+        invalidate((key, page) -> containsProduct(page, productId)
+                || (key.scope() == Scope.ALL && !"productId".equals(key.sortBy()))
+                || (key.scope() == Scope.CATEGORY && Objects.equals(key.categoryId(), categoryId))
+                || (key.scope() == Scope.KEYWORD && matchesKeyword.test(key.keyword())));
+    }
+
+    // Removing a product shifts every later page of the listings it was part of
+    public void onProductDeleted(Long productId, Long categoryId, Predicate<String> matchesKeyword) {
+        invalidate((key, page) -> containsProduct(page, productId) || inScope(key, categoryId, matchesKeyword));
+    }
+
+    // An image change never re-orders a listing, only the pages showing the product change
+    public void onProductChanged(Long productId) {
+        invalidate((key, page) -> containsProduct(page, productId));
+    }
+
+    // A stock change also moves the products through every listing sorted by quantity
+    public void onProductsChanged(Collection<Long> productIds) {
+        invalidate((key, page) -> "quantity".equals(key.sortBy())
+                || page.getContent().stream().anyMatch(product -> productIds.contains(product.getProductId())));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        pages.clear();
+    }
+
+    public CacheStatsDTO stats() {
+        long hits = pages.getHits();
+        long misses = pages.getMisses();
+        long lookups = hits + misses;
+        return new CacheStatsDTO(hits, misses, pages.getEvictions(), pages.size(), pages.getMaxEntries(),
+                lookups == 0 ? 0.0 : (double) hits / lookups);
+    }
+
+    private void invalidate(BiPredicate<PageKey, ProductResponse> stale) {
+        generation.incrementAndGet();
+        pages.removeIf(stale);
+    }
+
+    private boolean inScope(PageKey key, Long categoryId, Predicate<String> matchesKeyword) {
+        return switch (key.scope()) {
+            case ALL -> true;
+            case CATEGORY -> Objects.equals(key.categoryId(), categoryId);
+            case KEYWORD -> matchesKeyword.test(key.keyword());
+        };
+    }
+
+    private boolean containsProduct(ProductResponse page, Long productId) {
+        for (ProductDTO product : page.getContent()) {
+            if (Objects.equals(product.getProductId(), productId)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.project.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ProductExportService {
+    // Checks the request before the response is committed; returns the normalized format
+    String checkExport(Long categoryId, String format);
+
+    long exportProducts(Long categoryId, String format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.payload.ProductExportRow;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.CsvRecordWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+  Catalog export. Rows come off a forward-only cursor (ProductRepository.streamExport) and are written straight
+  to the caller's stream through a fixed-size buffer, so memory stays flat whatever the size of the catalog.
+*/
+@Service
+public class ProductExportServiceImpl implements ProductExportService {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public String checkExport(Long categoryId, String format) {
+        String resolved = format == null ? NDJSON : format.toLowerCase();
+        if (!CSV.equals(resolved) && !NDJSON.equals(resolved))
+            throw new APIException("Unsupported export format " + format + ", use csv or ndjson");
+        if (categoryId != null && !categoryRepository.existsById(categoryId))
+            throw new ResourceNotFoundException("Category", "categoryId", categoryId);
+        return resolved;
+    }
+
+    // readOnly: no dirty checking and no flush, the rows are projections anyway
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(Long categoryId, String format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        CsvRecordWriter csv = CSV.equals(format) ? new CsvRecordWriter(writer) : null;
+        if (csv != null)
+            csv.write("productId", "productName", "description", "categoryId", "quantity", "price", "discount", "specialPrice", "image");
+
+        long written = 0;
+        try (Stream<ProductExportRow> rows = categoryId == null
+                ? productRepository.streamExport()
+                : productRepository.streamExportByCategoryId(categoryId)) {
+            Iterator<ProductExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ProductExportRow row = iterator.next();
+                if (csv != null) {
+                    csv.write(row.productId(), row.productName(), row.description(), row.categoryId(),
+                            row.quantity(), row.price(), row.discount(), row.specialPrice(), row.image());
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                written++;
+            }
+        }
+        writer.flush();
+        return written;
+    }
+}
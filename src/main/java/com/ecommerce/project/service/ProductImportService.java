@@ -0,0 +1,12 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.ProductImportJobDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+public interface ProductImportService {
+    ProductImportJobDTO startImport(MultipartFile file, String format) throws IOException;
+
+    ProductImportJobDTO getImportJob(String jobId);
+}
@@ -0,0 +1,358 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductImportErrorDTO;
+import com.ecommerce.project.payload.ProductImportJobDTO;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.BoundedCache;
+import com.ecommerce.project.util.CsvRecordReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+  Bulk product import. The upload is moved to a temp file and parsed as a stream on productImportExecutor, one record
+  at a time. Rows are checked in batches of project.product-import.batch-size: one query for the batch's categories,
+  one for the names already taken, then one transaction whose inserts Hibernate sends as JDBC batches
+  (hibernate.jdbc.batch_size). Progress and per-row errors are kept per job for polling.
+*/
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final List<String> COLUMNS = List.of("categoryId", "productName", "description", "quantity", "price", "discount", "image");
+    private static final List<String> REQUIRED_COLUMNS = List.of("categoryId", "productName", "description", "price");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("productImportExecutor")
+    private ThreadPoolTaskExecutor productImportExecutor;
+
+    @Value("${project.product-import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${project.product-import.max-errors:1000}")
+    private int maxErrors;
+
+    // finished jobs stay around for polling until they expire
+    private final BoundedCache<String, ImportJob> jobs;
+
+    public ProductImportServiceImpl(@Value("${project.product-import.max-jobs:100}") int maxJobs,
+                                    @Value("${project.product-import.job-ttl-ms:3600000}") long jobTtlMs) {
+        this.jobs = new BoundedCache<>(maxJobs, jobTtlMs);
+    }
+
+    @Override
+    public ProductImportJobDTO startImport(MultipartFile file, String format) throws IOException {
+        if (file == null || file.isEmpty()) throw new APIException("Import file is empty");
+        String resolvedFormat = resolveFormat(format, file.getOriginalFilename());
+
+        // the multipart is gone once the request ends, the worker reads its own copy
+        Path upload = Files.createTempFile("product-import-", "." + resolvedFormat);
+        file.transferTo(upload);
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), resolvedFormat);
+        jobs.put(job.id, job);
+        try {
+            productImportExecutor.execute(() -> run(job, upload));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            Files.deleteIfExists(upload);
+            throw new APIException("Too many imports are running, try again later");
+        }
+        return job.toDTO();
+    }
+
+    @Override
+    public ProductImportJobDTO getImportJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) throw new ResourceNotFoundException("Import job", "jobId", jobId);
+        return job.toDTO();
+    }
+
+    private void run(ImportJob job, Path upload) {
+        try (BufferedReader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+            RowSource rows = CSV.equals(job.format) ? csvRows(reader) : ndjsonRows(reader);
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                if (row.error() != null) {
+                    job.fail(row, row.error());
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    importBatch(job, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) importBatch(job, batch);
+            job.finish(STATUS_COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Product import {} failed: {}", job.id, e.getMessage());
+            job.finish(STATUS_FAILED, e.getMessage());
+        } finally {
+            // restart the expiry from the end of the job, not its start
+            jobs.put(job.id, job);
+            try {
+                Files.deleteIfExists(upload);
+            } catch (IOException e) {
+                logger.warn("Could not delete import upload {}: {}", upload, e.getMessage());
+            }
+        }
+    }
+
+    private void importBatch(ImportJob job, List<ImportRow> batch) {
+        Set<Long> categoryIds = batch.stream().map(ImportRow::categoryId).collect(Collectors.toSet());
+        Set<Long> existingCategoryIds = new HashSet<>(categoryRepository.findCategoryIdsIn(categoryIds));
+        Set<String> productNames = batch.stream().map(row -> row.product().getProductName())
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        // names taken by earlier batches are committed by now, so this also catches duplicates across the file
+        Set<String> takenNames = productNames.isEmpty()
+                ? new HashSet<>() : new HashSet<>(productRepository.findProductNamesIn(productNames));
+
+        List<ImportRow> acceptedRows = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        for (ImportRow row : batch) {
+            Product product = productMapper.toProduct(row.product());
+            String violations = validator.validate(product).stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted().collect(Collectors.joining("; "));
+            if (!violations.isEmpty()) {
+                job.fail(row, violations);
+            } else if (product.getQuantity() < 0 || product.getPrice() < 0
+                    || product.getDiscount() < 0 || product.getDiscount() > 100) {
+                job.fail(row, "quantity and price must not be negative, discount must be between 0 and 100");
+            } else if (!existingCategoryIds.contains(row.categoryId())) {
+                job.fail(row, String.format("Category not found with categoryId: %d", row.categoryId()));
+            } else if (!takenNames.add(product.getProductName())) {
+                job.fail(row, String.format("Product with name %s already exists", product.getProductName()));
+            } else {
+                if (product.getImage() == null || product.getImage().isBlank()) product.setImage("default.png");
+                product.setSpecialPrice(product.getPrice() - (product.getDiscount() * 0.01) * product.getPrice());
+                acceptedRows.add(row);
+                products.add(product);
+            }
+        }
+        if (products.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < products.size(); i++) {
+                    products.get(i).setCategory(categoryRepository.getReferenceById(acceptedRows.get(i).categoryId()));
+                }
+                productRepository.saveAll(products);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Product import {} lost a batch of {} rows: {}", job.id, products.size(), e.getMessage());
+            acceptedRows.forEach(row -> job.fail(row, "Batch insert failed: " + e.getMessage()));
+            return;
+        }
+
+        job.imported.addAndGet(products.size());
+        products.forEach(product -> productSearchIndex.index(product.getProductId(), product.getProductName(), product.getDescription()));
+        productCatalogCache.invalidateAll();
+    }
+
+    private RowSource csvRows(BufferedReader reader) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) throw new APIException("CSV import has no header row");
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim();
+            for (String column : COLUMNS) {
+                if (column.equalsIgnoreCase(name)) columns.put(column, i);
+            }
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) throw new APIException("CSV header is missing columns " + missing);
+
+        long[] rowNumber = {0};
+        return () -> {
+            List<String> record = csv.next();
+            if (record == null) return null;
+            return toRow(++rowNumber[0], column -> {
+                Integer index = columns.get(column);
+                return index == null || index >= record.size() ? null : record.get(index);
+            });
+        };
+    }
+
+    private RowSource ndjsonRows(BufferedReader reader) {
+        long[] rowNumber = {0};
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) return null;
+            } while (line.isBlank());
+
+            long row = ++rowNumber[0];
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(row, null, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) return new ImportRow(row, null, null, "Each line must be a JSON object");
+            return toRow(row, field -> {
+                JsonNode value = node.get(field);
+                return value == null || value.isNull() ? null : value.asText();
+            });
+        };
+    }
+
+    private ImportRow toRow(long row, Function<String, String> field) {
+        ProductDTO product = new ProductDTO();
+        product.setProductName(trimToNull(field.apply("productName")));
+        product.setDescription(trimToNull(field.apply("description")));
+        product.setImage(trimToNull(field.apply("image")));
+        Long categoryId;
+        try {
+            categoryId = parse(field.apply("categoryId"), Long::valueOf, null);
+            product.setQuantity(parse(field.apply("quantity"), Integer::valueOf, 0));
+            product.setPrice(parse(field.apply("price"), Double::valueOf, 0.0));
+            product.setDiscount(parse(field.apply("discount"), Double::valueOf, 0.0));
+        } catch (NumberFormatException e) {
+            return new ImportRow(row, null, product, "categoryId, quantity, price and discount must be numbers");
+        }
+        if (categoryId == null) return new ImportRow(row, null, product, "categoryId is required");
+        return new ImportRow(row, categoryId, product, null);
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser, T defaultValue) {
+        String trimmed = trimToNull(value);
+        return trimmed == null ? defaultValue : parser.apply(trimmed);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String resolveFormat(String format, String fileName) {
+        String resolved = format;
+        if (resolved == null || resolved.isBlank()) {
+            String name = fileName == null ? "" : fileName.toLowerCase();
+            resolved = name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+        }
+        resolved = resolved.toLowerCase();
+        if (!CSV.equals(resolved) && !NDJSON.equals(resolved))
+            throw new APIException("Unsupported import format " + format + ", use csv or ndjson");
+        return resolved;
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        // null once the input is exhausted
+        ImportRow next() throws IOException;
+    }
+
+    // error is set when the row could not even be parsed
+    private record ImportRow(long row, Long categoryId, ProductDTO product, String error) {
+    }
+
+    private class ImportJob {
+        private final String id;
+        private final String format;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final ConcurrentLinkedQueue<ProductImportErrorDTO> errors = new ConcurrentLinkedQueue<>();
+        private volatile String status = STATUS_RUNNING;
+        private volatile String message;
+        private volatile Instant finishedAt;
+
+        private ImportJob(String id, String format) {
+            this.id = id;
+            this.format = format;
+        }
+
+        private void fail(ImportRow row, String reason) {
+            if (failed.incrementAndGet() <= maxErrors)
+                errors.add(new ProductImportErrorDTO(row.row(),
+                        row.product() == null ? null : row.product().getProductName(), reason));
+        }
+
+        private void finish(String status, String message) {
+            this.message = message;
+            this.finishedAt = Instant.now();
+            this.status = status;
+        }
+
+        private ProductImportJobDTO toDTO() {
+            return new ProductImportJobDTO(id, status, format, rowsRead.get(), imported.get(), failed.get(),
+                    List.copyOf(errors), message, startedAt, finishedAt);
+        }
+    }
+}
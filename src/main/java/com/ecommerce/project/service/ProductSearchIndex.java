@@ -0,0 +1,182 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+  In-process inverted index over product name and description.
+  token -> (productId -> weight), kept in a sorted map so a query token also matches every indexed token it prefixes.
+*/
+@Component
+public class ProductSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    // exact token hits rank above hits where the query token is only a prefix
+    private static final double EXACT_MATCH_BOOST = 2.0;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> documentTokens = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Map<String, Integer>> documents = new HashMap<>();
+        Pageable pageable = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("productId"));
+        Slice<ProductDTO> slice;
+        do {
+            slice = productRepository.findCatalogSlice(pageable);
+            slice.forEach(product -> documents.put(product.getProductId(),
+                    weighTokens(product.getProductName(), product.getDescription())));
+            pageable = slice.nextPageable();
+        } while (slice.hasNext());
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTokens.clear();
+            documents.forEach(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product search index built with {} products and {} tokens", documents.size(), postings.size());
+    }
+
+    public void index(Long productId, String productName, String description) {
+        Map<String, Integer> weights = weighTokens(productName, description);
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            addDocument(productId, weights);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every query token must match (exactly or as a prefix); best score first, ties by productId in sortOrder
+    public List<Long> search(String query, String sortOrder) {
+        List<String> queryTokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTokens.isEmpty()) return List.of();
+
+        Map<Long, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            int documentCount = Math.max(documentTokens.size(), 1);
+            for (String queryToken : queryTokens) {
+                Map<Long, Double> tokenScores = new HashMap<>();
+                for (Map.Entry<String, Map<Long, Integer>> posting : prefixRange(queryToken).entrySet()) {
+                    Map<Long, Integer> products = posting.getValue();
+                    double idf = 1.0 + Math.log((double) documentCount / products.size());
+                    double boost = posting.getKey().equals(queryToken) ? EXACT_MATCH_BOOST : 1.0;
+                    products.forEach((productId, weight) ->
+                            tokenScores.merge(productId, weight * idf * boost, Double::sum));
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    Map<Long, Double> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Double> entry : tokenScores.entrySet()) {
+                        Double score = previous.get(entry.getKey());
+                        if (score != null) scores.put(entry.getKey(), score + entry.getValue());
+                    }
+                }
+                if (scores.isEmpty()) return List.of();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Comparator<Map.Entry<Long, Double>> byId = Map.Entry.comparingByKey();
+        if (sortOrder.equalsIgnoreCase("desc")) byId = byId.reversed();
+        Comparator<Map.Entry<Long, Double>> byScore = Map.Entry.<Long, Double>comparingByValue().reversed();
+        return scores.entrySet().stream()
+                .sorted(byScore.thenComparing(byId))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // Same matching rule as search(), for callers that need to know whether a query would hit a document
+    public static boolean matches(String query, String productName, String description) {
+        Set<String> documentTokens = new HashSet<>(tokenize(productName));
+        documentTokens.addAll(tokenize(description));
+        for (String queryToken : tokenize(query)) {
+            if (documentTokens.stream().noneMatch(token -> token.startsWith(queryToken))) return false;
+        }
+        return true;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static Map<String, Integer> weighTokens(String productName, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(productName).forEach(token -> weights.merge(token, NAME_WEIGHT, Integer::sum));
+        tokenize(description).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+        return weights;
+    }
+
+    private NavigableMap<String, Map<Long, Integer>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // callers hold the write lock
+    private void addDocument(Long productId, Map<String, Integer> weights) {
+        weights.forEach((token, weight) ->
+                postings.computeIfAbsent(token, t -> new HashMap<>()).put(productId, weight));
+        documentTokens.put(productId, weights.keySet());
+    }
+
+    private void removeDocument(Long productId) {
+        Set<String> tokens = documentTokens.remove(productId);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            Map<Long, Integer> products = postings.get(token);
+            if (products == null) continue;
+            products.remove(productId);
+            if (products.isEmpty()) postings.remove(token);
+        }
+    }
+}
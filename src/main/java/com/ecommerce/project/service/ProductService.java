@@ -13,6 +13,10 @@ public interface ProductService {
 
     ProductResponse getProductsByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
+    ProductResponse getProductsAfter(String after, Integer pageSize, String sortBy, String sortOrder);
+
+    ProductResponse getProductsByCategoryAfter(Long categoryId, String after, Integer pageSize, String sortBy, String sortOrder);
+
     ProductResponse getProductsByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
 
     ProductDTO updateProduct(ProductDTO productDTO, Long productId);
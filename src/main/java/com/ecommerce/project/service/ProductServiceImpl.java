@@ -2,30 +2,38 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
-import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.mapper.ProductMapper;
 import com.ecommerce.project.model.CartItem;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
-import com.ecommerce.project.payload.CartDTO;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.payload.ProductSummary;
 import com.ecommerce.project.repositories.CartItemRepository;
 import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.CategoryRepository;
 import com.ecommerce.project.repositories.ProductRepository;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService{
@@ -37,7 +45,7 @@ public class ProductServiceImpl implements ProductService{
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
 
     @Autowired
     private FileService fileService;
@@ -46,14 +54,42 @@ public class ProductServiceImpl implements ProductService{
     private CartRepository cartRepository;
 
     @Autowired
-    private CartService cartService;
+    private CartItemRepository cartItemRepository;
 
-    @Value("${project.image}")
-    private String path;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ImageProcessor imageProcessor;
+
+    @Autowired
+    private CartPricing cartPricing;
+
+    @Autowired
+    private CartLocks cartLocks;
+
+    // keep deleted products' rows (flagged) instead of removing them, see Product.deleted
+    @Value("${project.product.soft-delete:false}")
+    private boolean softDelete;
+
+    // properties usable as keyset, with the type their cursor value converts back to
+    // Keyset scrolling can't resume after a null sort key, so nullable columns like quantity are left out
+    private static final Map<String,Class<?>> KEYSET_SORT_KEYS = Map.of(
+            "productId",Long.class,
+            "productName",String.class,
+            "price",Double.class,
+            "discount",Double.class,
+            "specialPrice",Double.class);
     @Override
     public ProductDTO addProduct(Long categoryId, ProductDTO productDTO) {
-        Product product = modelMapper.map(productDTO,Product.class);
-        Product existAlready = productRepository.findByProductName(product.getProductName());
+        Product product = productMapper.toProduct(productDTO);
+        Product existAlready = productRepository.findByProductNameAndDeletedFalse(product.getProductName());
         if(existAlready!=null)
             throw new APIException(String.format("Product with name %s already exists",product.getProductName()));
 
@@ -64,31 +100,37 @@ public class ProductServiceImpl implements ProductService{
         double specialPrice = product.getPrice()-(product.getDiscount() * 0.01)* product.getPrice();
         product.setSpecialPrice(specialPrice);
         Product savedProduct = productRepository.save(product);
+        productSearchIndex.index(savedProduct.getProductId(),savedProduct.getProductName(),savedProduct.getDescription());
+        productCatalogCache.onProductAdded(categoryId,
+                keyword -> ProductSearchIndex.matches(keyword,savedProduct.getProductName(),savedProduct.getDescription()));
 
-        return modelMapper.map(savedProduct,ProductDTO.class);
+        return productMapper.toProductDTO(savedProduct);
     }
 
     @Override
     public ProductResponse getAllProducts(Integer pageNumber,Integer pageSize,String sortBy,String sortOrder) {
+        ProductCatalogCache.PageKey cacheKey = ProductCatalogCache.PageKey.all(pageNumber,pageSize,sortBy,sortOrder);
+        ProductResponse cachedResponse = productCatalogCache.get(cacheKey);
+        if(cachedResponse!=null)
+            return cachedResponse;
+        long cacheGeneration = productCatalogCache.generation();
+
         Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
         Pageable pageDetails = PageRequest.of(pageNumber,pageSize,sortByAndOrder);
-        Page<Product> productPage = productRepository.findAll(pageDetails);
+        Page<ProductDTO> productPage = productRepository.findCatalogPage(pageDetails);
         /*
          Page<T>
       -> A sublist of a list of objects (List<T>) that is aware of the total number of pages/elements.
       -> Contains metadata like current page, total pages, total elements, etc.
         */
-        List<Product> products = productPage.getContent();
+        List<ProductDTO> productDTOS = productPage.getContent();
 
-        if(products.isEmpty())
+        if(productDTOS.isEmpty())
             throw new APIException("No Product Present Currently!!");
 
-        List<ProductDTO> productDTOS = products
-                .stream().map(product -> modelMapper.map(product,ProductDTO.class)).toList();
-
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
         productResponse.setPageNumber(productPage.getNumber());
@@ -97,11 +139,18 @@ public class ProductServiceImpl implements ProductService{
         productResponse.setTotalElements(productPage.getTotalElements());
         productResponse.setLastPage(productPage.isLast());
 
+        productCatalogCache.put(cacheKey,productResponse,cacheGeneration);
         return productResponse;
     }
 
     @Override
     public ProductResponse getProductsByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        ProductCatalogCache.PageKey cacheKey = ProductCatalogCache.PageKey.category(categoryId,pageNumber,pageSize,sortBy,sortOrder);
+        ProductResponse cachedResponse = productCatalogCache.get(cacheKey);
+        if(cachedResponse!=null)
+            return cachedResponse;
+        long cacheGeneration = productCatalogCache.generation();
+
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category","categoryId",categoryId));
 
@@ -110,11 +159,8 @@ public class ProductServiceImpl implements ProductService{
                 : Sort.by(sortBy).descending();
         Pageable pageDetails = PageRequest.of(pageNumber,pageSize,sortByAndOrder);
 
-        Page<Product> productPage = productRepository.findByCategoryOrderByPriceAsc(category,pageDetails);
-        List<Product> products = productPage.getContent();
-
-        List<ProductDTO> productDTOS = products
-                .stream().map(product -> modelMapper.map(product,ProductDTO.class)).toList();
+        Page<ProductDTO> productPage = productRepository.findCatalogPageByCategoryId(category.getCategoryId(),pageDetails);
+        List<ProductDTO> productDTOS = productPage.getContent();
 
         if(productDTOS.isEmpty())
             throw new APIException(String.format("No product found with CategoryId: %d",categoryId));
@@ -127,35 +173,87 @@ public class ProductServiceImpl implements ProductService{
         productResponse.setTotalElements(productPage.getTotalElements());
         productResponse.setLastPage(productPage.isLast());
 
+        productCatalogCache.put(cacheKey,productResponse,cacheGeneration);
         return productResponse;
     }
 
     @Override
-    public ProductResponse getProductsByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = sortOrder.equalsIgnoreCase("asc")
-                ? Sort.by(sortBy).ascending()
-                : Sort.by(sortBy).descending();
+    public ProductResponse getProductsAfter(String after, Integer pageSize, String sortBy, String sortOrder) {
+        ScrollPosition position = KeysetCursor.scrollPosition(after,sortBy,sortOrder,"productId",KEYSET_SORT_KEYS);
+        Window<ProductSummary> productWindow = productRepository.findByDeletedFalse(position,
+                KeysetCursor.sort(sortBy,sortOrder),Limit.of(pageSize));
 
-        Pageable pageDetails = PageRequest.of(pageNumber,pageSize,sortByAndOrder);
-        Page<Product> productPage = productRepository.findByProductNameLikeIgnoreCase('%' + keyword + '%',pageDetails);
-        List<ProductDTO> productDTOS =  productPage.getContent()
-                .stream().map(product -> modelMapper.map(product,ProductDTO.class)).toList();
+        if(productWindow.isEmpty() && position.isInitial())
+            throw new APIException("No Product Present Currently!!");
+
+        return toCursorResponse(productWindow,pageSize,sortBy,sortOrder);
+    }
+
+    @Override
+    public ProductResponse getProductsByCategoryAfter(Long categoryId, String after, Integer pageSize, String sortBy, String sortOrder) {
+        if(!categoryRepository.existsById(categoryId))
+            throw new ResourceNotFoundException("Category","categoryId",categoryId);
+
+        ScrollPosition position = KeysetCursor.scrollPosition(after,sortBy,sortOrder,"productId",KEYSET_SORT_KEYS);
+        Window<ProductSummary> productWindow = productRepository.findByCategoryCategoryIdAndDeletedFalse(categoryId,position,
+                KeysetCursor.sort(sortBy,sortOrder),Limit.of(pageSize));
+
+        if(productWindow.isEmpty() && position.isInitial())
+            throw new APIException(String.format("No product found with CategoryId: %d",categoryId));
+
+        return toCursorResponse(productWindow,pageSize,sortBy,sortOrder);
+    }
+
+    private ProductResponse toCursorResponse(Window<ProductSummary> productWindow, Integer pageSize, String sortBy, String sortOrder) {
+        ProductResponse productResponse = new ProductResponse();
+        productResponse.setContent(productMapper.summariesToProductDTOs(productWindow.getContent()));
+        productResponse.setPageSize(pageSize);
+        productResponse.setLastPage(!productWindow.hasNext());
+        productResponse.setNextCursor(KeysetCursor.nextCursor(productWindow,sortBy,sortOrder,"productId"));
+        return productResponse;
+    }
+
+    @Override
+    public ProductResponse getProductsByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        ProductCatalogCache.PageKey cacheKey = ProductCatalogCache.PageKey.keyword(keyword,pageNumber,pageSize,sortBy,sortOrder);
+        ProductResponse cachedResponse = productCatalogCache.get(cacheKey);
+        if(cachedResponse!=null)
+            return cachedResponse;
+        long cacheGeneration = productCatalogCache.generation();
+
+        // ranked by relevance, sortOrder only breaks ties between equally relevant products
+        List<Long> rankedProductIds = productSearchIndex.search(keyword,sortOrder);
+        int fromIndex = (int) Math.min((long) pageNumber * pageSize, rankedProductIds.size());
+        int toIndex = Math.min(fromIndex + pageSize, rankedProductIds.size());
+        List<Long> pageProductIds = rankedProductIds.subList(fromIndex,toIndex);
+
+        Map<Long,ProductDTO> productsById = productRepository.findCatalogByProductIdIn(pageProductIds)
+                .stream().collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+        List<ProductDTO> productDTOS = pageProductIds.stream()
+                .map(productsById::get).filter(Objects::nonNull).toList();
         if(productDTOS.isEmpty())
             throw new APIException(String.format("No product Found with Keyword: %s",keyword));
+
+        int totalPages = (rankedProductIds.size() + pageSize - 1) / pageSize;
         ProductResponse productResponse = new ProductResponse();
         productResponse.setContent(productDTOS);
-        productResponse.setPageNumber(productPage.getNumber());
-        productResponse.setPageSize(productPage.getSize());
-        productResponse.setTotalPages(productPage.getTotalPages());
-        productResponse.setTotalElements(productPage.getTotalElements());
-        productResponse.setLastPage(productPage.isLast());
+        productResponse.setPageNumber(pageNumber);
+        productResponse.setPageSize(pageSize);
+        productResponse.setTotalPages(totalPages);
+        productResponse.setTotalElements((long) rankedProductIds.size());
+        productResponse.setLastPage(pageNumber >= totalPages - 1);
+        productCatalogCache.put(cacheKey,productResponse,cacheGeneration);
         return productResponse;
     }
 
     @Override
     public ProductDTO updateProduct(ProductDTO productDTO, Long productId) {
-        Product product = productRepository.findById(productId)
+        Product product = productRepository.findActiveById(productId)
                 .orElseThrow(()-> new ResourceNotFoundException("Product","productId",productId));
+        String oldProductName = product.getProductName();
+        String oldDescription = product.getDescription();
+        boolean repriced = !Objects.equals(product.getSpecialPrice(), productDTO.getSpecialPrice())
+                || !Objects.equals(product.getDiscount(), productDTO.getDiscount());
 
         product.setProductName(productDTO.getProductName());
         product.setDescription(productDTO.getDescription());
@@ -165,52 +263,63 @@ public class ProductServiceImpl implements ProductService{
         product.setSpecialPrice(productDTO.getSpecialPrice());
 
         Product savedProduct = productRepository.save(product);
-
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-
-        List<CartDTO> cartDTOS = carts.stream().map(cart -> {
-                   CartDTO cartDTO = modelMapper.map(cart,CartDTO.class);
-                   List<ProductDTO> products = cart.getCartItems().stream()
-                           .map(p -> modelMapper.map(p,ProductDTO.class)).toList();
-                   cartDTO.setProducts(products);
-                   return cartDTO;
-                }).toList();
-
-        cartDTOS.forEach(cart -> cartService.updateProductInCarts(cart.getCartId(),productId));
-        return modelMapper.map(savedProduct,ProductDTO.class);
+        productSearchIndex.index(productId,savedProduct.getProductName(),savedProduct.getDescription());
+        productCatalogCache.onProductUpdated(productId,savedProduct.getCategory().getCategoryId(),
+                keyword -> ProductSearchIndex.matches(keyword,oldProductName,oldDescription)
+                        || ProductSearchIndex.matches(keyword,savedProduct.getProductName(),savedProduct.getDescription()));
+
+        // two set-based statements for all carts holding the product, async for a large fan-out
+        if(repriced) cartPricing.repriceProduct(productId,savedProduct.getSpecialPrice());
+        return productMapper.toProductDTO(savedProduct);
     }
 
     @Override
     public ProductDTO deleteProduct(Long productId) {
-        Product product = productRepository.findById(productId)
+        Product product = productRepository.findActiveById(productId)
                 .orElseThrow(()-> new ResourceNotFoundException("Product","productId",productId));
 
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-
-        carts.forEach(cart -> cartService.deleteProductFromCart(cart.getCartId(),productId));
-
-        productRepository.delete(product);
-        return modelMapper.map(product,ProductDTO.class);
+        // the same four statements however many carts hold the product: their locks, totals and lines, the product
+        try {
+            cartLocks.acrossCarts(() -> transactionTemplate.execute(status -> {
+                cartRepository.lockCartsByProductId(productId);
+                cartRepository.subtractProductLines(productId);
+                cartItemRepository.deleteByProductId(productId);
+                if(softDelete) productRepository.markDeleted(productId);
+                else productRepository.delete(product);
+                return null;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            throw new APIException("Product " + product.getProductName()
+                    + " has been ordered and can only be deleted with project.product.soft-delete=true");
+        }
+
+        productSearchIndex.remove(productId);
+        productCatalogCache.onProductDeleted(productId,product.getCategory().getCategoryId(),
+                keyword -> ProductSearchIndex.matches(keyword,product.getProductName(),product.getDescription()));
+        return productMapper.toProductDTO(product);
     }
 
     @Override
     public ProductDTO updateProductImage(Long productId, MultipartFile image) throws IOException {
         // get product from DB
-        Product productFromDb = productRepository.findById(productId)
+        Product productFromDb = productRepository.findActiveById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product","productId",productId));
         // upload the image to server
         // Get the filename of uploaded image
 
-        String fileName = fileService.uploadImage(path,image);
+        // Stored under its content hash; thumbnail, listing and detail variants follow in the background
+        String fileName = fileService.uploadImage(image);
+        imageProcessor.submit(fileName);
 
         // Updating the new file name to the product
         productFromDb.setImage(fileName);
 
         //save updated product
         productRepository.save(productFromDb);
+        productCatalogCache.onProductChanged(productId);
 
         // return DTO after mapping product to DTO
-        return modelMapper.map(productFromDb,ProductDTO.class);
+        return productMapper.toProductDTO(productFromDb);
     }
 
 }
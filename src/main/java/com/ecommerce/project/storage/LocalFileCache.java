@@ -0,0 +1,141 @@
+package com.ecommerce.project.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/*
+  Disk LRU in front of a remote store, bounded by total bytes. Objects never change, so an entry is valid until it
+  is evicted. A file evicted while a response is being sent from it stays readable on POSIX systems until closed.
+*/
+public class LocalFileCache {
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileCache.class);
+
+    private final Path folder;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    // key -> size, least recently used first
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public LocalFileCache(Path folder, long maxBytes) throws IOException {
+        this.folder = folder;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(folder);
+        // whatever survived a restart is reused, oldest first in line for eviction
+        try (Stream<Path> files = Files.list(folder)) {
+            files.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(LocalFileCache::lastModified))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        if (name.endsWith(".tmp")) {
+                            deleteQuietly(file);
+                        } else {
+                            long size = size(file);
+                            sizes.put(name, size);
+                            totalBytes += size;
+                        }
+                    });
+        }
+        evict();
+    }
+
+    public Path get(String key) {
+        lock.lock();
+        try {
+            if (sizes.get(key) == null) return null;
+        } finally {
+            lock.unlock();
+        }
+        Path path = folder.resolve(key);
+        if (Files.isRegularFile(path)) return path;
+        remove(key);
+        return null;
+    }
+
+    // Moves file into the cache under key and returns its new location
+    public Path put(String key, Path file) throws IOException {
+        Path tempFile = Files.createTempFile(folder, "cache-", ".tmp");
+        Path path = folder.resolve(key);
+        try {
+            Files.move(file, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        long size = Files.size(path);
+        lock.lock();
+        try {
+            Long previous = sizes.put(key, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+        return path;
+    }
+
+    public long getTotalBytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(String key) {
+        lock.lock();
+        try {
+            Long size = sizes.remove(key);
+            if (size != null) totalBytes -= size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // callers hold the lock (or are the constructor); the newest entry is always kept, even when it alone is too big
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && sizes.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            deleteQuietly(folder.resolve(entry.getKey()));
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete cached file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.project.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+// Objects are plain files in one folder (project.image). Also the stand-in for the bucket in development and tests.
+public class LocalObjectStorage implements ObjectStorage {
+
+    private final Path folder;
+
+    public LocalObjectStorage(Path folder) {
+        this.folder = folder;
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        Files.createDirectories(folder);
+        // into the folder first (a copy if file is on another file system), then renamed so readers never see half a file
+        Path tempFile = Files.createTempFile(folder, "upload-", ".tmp");
+        try {
+            Files.move(file, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile, folder.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(folder.resolve(key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) return null;
+            return new StoredObject(key, attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Path localCopy(String key) {
+        Path path = folder.resolve(key);
+        return Files.isRegularFile(path) ? path : null;
+    }
+}
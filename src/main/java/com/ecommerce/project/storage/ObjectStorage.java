@@ -0,0 +1,21 @@
+package com.ecommerce.project.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/*
+  Where uploaded images live (project.storage.type): the local image folder, or an S3-compatible bucket shared by
+  every app node. Keys are flat file names; uploads are content-hashed, so an object never changes once stored.
+  Callers hand over and get back local files, so resizing and sendfile serving work the same on either backend.
+*/
+public interface ObjectStorage {
+
+    // Stores file under key. The file is consumed: it is moved into place or deleted once stored.
+    void put(String key, Path file, String contentType) throws IOException;
+
+    // Size and modification time of the object, or null when there is none
+    StoredObject stat(String key) throws IOException;
+
+    // A local file holding the object's bytes, or null when there is none
+    Path localCopy(String key) throws IOException;
+}
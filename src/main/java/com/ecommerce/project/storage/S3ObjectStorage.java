@@ -0,0 +1,165 @@
+package com.ecommerce.project.storage;
+
+import com.ecommerce.project.util.BoundedCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+  Objects in an S3-compatible bucket (AWS, MinIO, ...), shared by every app node.
+  Files up to partSize go up in one PUT streamed from disk; bigger ones as a multipart upload, one part in memory
+  at a time. Every object stored or fetched by this node is kept in the LocalFileCache, so hot images are served
+  from local disk and read from the bucket once. Keys the bucket doesn't have are remembered for missTtlMs, so a
+  missing image requested over and over costs one bucket round trip per TTL, not one per request.
+*/
+public class S3ObjectStorage implements ObjectStorage {
+    private static final Logger logger = LoggerFactory.getLogger(S3ObjectStorage.class);
+
+    // S3 rejects multipart parts below 5 MB, except the last one
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_MISSES = 10_000;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final int partSize;
+    private final LocalFileCache cache;
+    private final BoundedCache<String, Boolean> misses;
+
+    public S3ObjectStorage(S3Client s3Client, String bucket, int partSize, LocalFileCache cache, long missTtlMs) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.cache = cache;
+        this.misses = new BoundedCache<>(MAX_MISSES, missTtlMs);
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        try {
+            long length = Files.size(file);
+            if (length <= partSize) {
+                s3Client.putObject(PutObjectRequest.builder().bucket(bucket).key(key).contentType(contentType).build(),
+                        RequestBody.fromFile(file));
+            } else {
+                putMultipart(key, file, length, contentType);
+            }
+            // write-through: the node that stored an object is the one most likely to serve it next
+            cache.put(key, file);
+            misses.remove(key);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        Path cached = cache.get(key);
+        if (cached != null) {
+            return new StoredObject(key, Files.size(cached), Files.getLastModifiedTime(cached).toMillis());
+        }
+        if (misses.get(key) != null) return null;
+        try {
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return new StoredObject(key, head.contentLength(), head.lastModified().toEpochMilli());
+        } catch (S3Exception e) {
+            if (isNotFound(e)) return missing(key);
+            throw e;
+        }
+    }
+
+    @Override
+    public Path localCopy(String key) throws IOException {
+        Path cached = cache.get(key);
+        if (cached != null) return cached;
+        if (misses.get(key) != null) return null;
+
+        Path tempFile = Files.createTempFile("object-", ".tmp");
+        try {
+            GetObjectResponse object = s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build(),
+                    ResponseTransformer.toFile(replaceable(tempFile)));
+            // Last-Modified of the copy is the object's, so every node sends the same header for it
+            if (object.lastModified() != null) {
+                Files.setLastModifiedTime(tempFile, FileTime.from(object.lastModified()));
+            }
+            return cache.put(key, tempFile);
+        } catch (S3Exception e) {
+            if (isNotFound(e)) return missing(key);
+            throw e;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void putMultipart(String key, Path file, long length, String contentType) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket).key(key).contentType(contentType).build()).uploadId();
+        try (InputStream in = Files.newInputStream(file)) {
+            List<CompletedPart> parts = new ArrayList<>();
+            // one buffer for every part: it is reused as soon as the previous part is acknowledged
+            byte[] buffer = new byte[(int) Math.min(partSize, length)];
+            int partNumber = 1;
+            int read;
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                int partLength = read;
+                String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(bucket).key(key).uploadId(uploadId)
+                                .partNumber(partNumber).contentLength((long) partLength).build(),
+                        RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, partLength),
+                                partLength, contentType)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                partNumber++;
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()).build());
+        } catch (IOException | RuntimeException e) {
+            // an unfinished upload keeps its parts (and their storage cost) until aborted
+            try {
+                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucket).key(key).uploadId(uploadId).build());
+            } catch (RuntimeException abortFailure) {
+                logger.warn("Aborting multipart upload {} of {} failed: {}", uploadId, key, abortFailure.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private <T> T missing(String key) {
+        misses.put(key, Boolean.TRUE);
+        return null;
+    }
+
+    // ResponseTransformer.toFile refuses to overwrite, so the temp file only reserves the name
+    private static Path replaceable(Path tempFile) throws IOException {
+        Files.delete(tempFile);
+        return tempFile;
+    }
+
+    private static boolean isNotFound(S3Exception e) {
+        return e instanceof NoSuchKeyException || e.statusCode() == 404;
+    }
+}
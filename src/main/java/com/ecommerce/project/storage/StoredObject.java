@@ -0,0 +1,4 @@
+package com.ecommerce.project.storage;
+
+public record StoredObject(String key, long length, long lastModified) {
+}
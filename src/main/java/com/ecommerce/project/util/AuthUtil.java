@@ -2,30 +2,43 @@ package com.ecommerce.project.util;
 
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.services.UserDetailsImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
+/*
+  Current user, read from the principal AuthTokenFilter put in the security context for this request.
+  Only a principal of another type (e.g. a test's mock user) falls back to a users lookup.
+*/
 @Component
 public class AuthUtil {
 
     @Autowired
     UserRepository userRepository;
 
-    public String loggedInEmail(){
+    public UserDetailsImpl loggedInPrincipal(){
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByUserName(authentication.getName())
-                .orElseThrow(()-> new UsernameNotFoundException("User Not found with username: "+authentication.getName()));
-        return user.getEmail();
-    }
+        if(authentication.getPrincipal() instanceof UserDetailsImpl userDetails)
+            return userDetails;
 
-    public User loggedInUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         User user = userRepository.findByUserName(authentication.getName())
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username "+authentication.getName()));
+        return UserDetailsImpl.build(user);
+    }
 
-        return user;
+    public String loggedInEmail(){
+        return loggedInPrincipal().getEmail();
+    }
+
+    public Long loggedInUserId(){
+        return loggedInPrincipal().getId();
+    }
+
+    // Reference only: nothing is read from users unless a caller touches more than the id
+    public User loggedInUser() {
+        return userRepository.getReferenceById(loggedInUserId());
     }
 }
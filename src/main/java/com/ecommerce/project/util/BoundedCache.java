@@ -0,0 +1,177 @@
+package com.ecommerce.project.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/*
+  Small LRU cache bounded by entry count, where every entry carries its own expiry time.
+  Guarded by a ReentrantLock (not synchronized) so a waiting thread never pins a carrier thread.
+  Values the evictable predicate rejects are skipped by LRU eviction, so while they last the cache may go over
+  maxEntries; expiry and explicit removal still apply to them.
+*/
+public class BoundedCache<K, V> {
+
+    private final int maxEntries;
+    private final long defaultTtlMs;
+    private final Predicate<V> evictable;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BoundedCache(int maxEntries, long defaultTtlMs) {
+        this(maxEntries, defaultTtlMs, value -> true);
+    }
+
+    public BoundedCache(int maxEntries, long defaultTtlMs, Predicate<V> evictable) {
+        this.maxEntries = maxEntries;
+        this.defaultTtlMs = defaultTtlMs;
+        this.evictable = evictable;
+        // accessOrder = true -> iteration order is least-recently-used first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public V get(K key) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.expiresAt <= now) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + defaultTtlMs);
+    }
+
+    public void put(K key, V value, long expiresAt) {
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, expiresAt));
+            if (entries.size() > maxEntries) {
+                Iterator<Entry<V>> eldest = entries.values().iterator();
+                while (entries.size() > maxEntries && eldest.hasNext()) {
+                    if (!evictable.test(eldest.next().value)) continue;
+                    eldest.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stores value only if there is no live entry for key; returns the live entry's value, or null if value was stored
+    public V putIfAbsent(K key, V value, long expiresAt) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            misses.incrementAndGet();
+            put(key, value, expiresAt);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removes key only while it still maps to value
+    public void remove(K key, V value) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.value == value) entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removes every entry matching the predicate and returns how many were dropped
+    public int removeIf(BiPredicate<K, V> predicate) {
+        int removed = 0;
+        lock.lock();
+        try {
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> next = iterator.next();
+                if (predicate.test(next.getKey(), next.getValue().value)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return removed;
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
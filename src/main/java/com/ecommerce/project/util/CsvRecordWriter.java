@@ -0,0 +1,40 @@
+package com.ecommerce.project.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/*
+  Writes CSV records in the dialect CsvRecordReader reads: a field is quoted only when it holds a comma,
+  a quote or a line break, and quotes inside it are doubled. Null is written as an empty field.
+*/
+public class CsvRecordWriter {
+
+    private final Writer writer;
+
+    public CsvRecordWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void write(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) writer.write(',');
+            if (fields[i] != null) writeField(fields[i].toString());
+        }
+        writer.write('\n');
+    }
+
+    private void writeField(String field) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
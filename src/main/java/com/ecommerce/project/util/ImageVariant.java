@@ -0,0 +1,95 @@
+package com.ecommerce.project.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+  Resized copies kept next to every uploaded image. Uploads are stored as <sha-256>.<ext>, and a variant of one
+  is <sha-256>-<suffix>.<ext>, so the URLs follow from the stored name and identical uploads share their variants.
+  Variants of formats ImageIO can't write (webp, ...) are PNGs named <sha-256>-<suffix>.<ext>.png.
+*/
+public enum ImageVariant {
+    THUMBNAIL("thumb", 150),
+    LISTING("listing", 400),
+    DETAIL("detail", 1024);
+
+    public static final String URL_PREFIX = "/images/";
+
+    // formats ImageIO writes out of the box; variants of anything else are written as FALLBACK_FORMAT
+    private static final Set<String> WRITABLE_FORMATS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+    private static final String FALLBACK_FORMAT = "png";
+
+    private static final Pattern CONTENT_HASHED = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]+");
+    private static final Pattern VARIANT = Pattern.compile("([0-9a-f]{64})-([a-z]+)(\\.[a-z0-9]+)(\\." + FALLBACK_FORMAT + ")?");
+
+    private final String suffix;
+    // the longer side of the variant, smaller originals are kept at their own size
+    private final int maxDimension;
+
+    ImageVariant(String suffix, int maxDimension) {
+        this.suffix = suffix;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    // The name says what the bytes are; the original's extension stays in it, so originalOf can find the original
+    public String fileName(String original) {
+        int dot = original.lastIndexOf('.');
+        String fileName = original.substring(0, dot) + "-" + suffix + original.substring(dot);
+        return WRITABLE_FORMATS.contains(original.substring(dot + 1)) ? fileName : fileName + "." + FALLBACK_FORMAT;
+    }
+
+    // The ImageIO format the variants of an original are written in
+    public static String formatOf(String original) {
+        String extension = original.substring(original.lastIndexOf('.') + 1);
+        return WRITABLE_FORMATS.contains(extension) ? extension : FALLBACK_FORMAT;
+    }
+
+    public static boolean isContentHashed(String fileName) {
+        return fileName != null && CONTENT_HASHED.matcher(fileName).matches();
+    }
+
+    // The variant a file name stands for, or null when it is not a variant name
+    public static ImageVariant of(String fileName) {
+        if (fileName == null) return null;
+        Matcher matcher = VARIANT.matcher(fileName);
+        if (!matcher.matches()) return null;
+        for (ImageVariant variant : values()) {
+            if (variant.suffix.equals(matcher.group(2))) return variant;
+        }
+        return null;
+    }
+
+    // <hash>.<ext> for a variant name, null otherwise
+    public static String originalOf(String fileName) {
+        if (of(fileName) == null) return null;
+        Matcher matcher = VARIANT.matcher(fileName);
+        matcher.matches();
+        return matcher.group(1) + matcher.group(3);
+    }
+
+    // Content-hashed originals and their variants never change once written
+    public static boolean isImmutable(String fileName) {
+        return isContentHashed(fileName) || of(fileName) != null;
+    }
+
+    // suffix -> URL for every variant; null for images stored before variants existed (e.g. default.png)
+    public static Map<String, String> urls(String image) {
+        if (!isContentHashed(image)) return null;
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (ImageVariant variant : values()) {
+            urls.put(variant.suffix, URL_PREFIX + variant.fileName(image));
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+  Opaque "after" token for keyset paging: the sort key value and id of the last row served,
+  plus the sort it was issued for. Serialized as JSON and Base64url encoded.
+*/
+public record KeysetCursor(String sortBy, String sortOrder, String value, String id) {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode cursor", e);
+        }
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(token), KeysetCursor.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new APIException("Invalid cursor: " + token);
+        }
+    }
+
+    public static Sort sort(String sortBy, String sortOrder) {
+        return sortOrder.equalsIgnoreCase("asc")
+                ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+    }
+
+    // sortKeys whitelists the properties that may be used as keyset and the type their cursor value converts back to
+    public static ScrollPosition scrollPosition(String after, String sortBy, String sortOrder,
+                                                String idProperty, Map<String, Class<?>> sortKeys) {
+        if (!sortKeys.containsKey(sortBy))
+            throw new APIException("Cursor paging is not supported for sortBy: " + sortBy);
+        if (after == null || after.isBlank())
+            return ScrollPosition.keyset();
+
+        KeysetCursor cursor = decode(after);
+        if (!sortBy.equals(cursor.sortBy()) || !sortOrder.equalsIgnoreCase(cursor.sortOrder()))
+            throw new APIException("Cursor was issued for sortBy " + cursor.sortBy() + " " + cursor.sortOrder());
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(sortBy, convert(cursor.value(), sortKeys.get(sortBy)));
+        keys.put(idProperty, convert(cursor.id(), sortKeys.get(idProperty)));
+        return ScrollPosition.forward(keys);
+    }
+
+    public static String nextCursor(Window<?> window, String sortBy, String sortOrder, String idProperty) {
+        if (window.isEmpty() || !window.hasNext())
+            return null;
+        KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        Map<String, Object> keys = position.getKeys();
+        return new KeysetCursor(sortBy, sortOrder.toLowerCase(),
+                String.valueOf(keys.get(sortBy)), String.valueOf(keys.get(idProperty))).encode();
+    }
+
+    private static Object convert(String value, Class<?> type) {
+        try {
+            if (type == Long.class) return Long.valueOf(value);
+            if (type == Integer.class) return Integer.valueOf(value);
+            if (type == Double.class) return Double.valueOf(value);
+            return value;
+        } catch (NumberFormatException e) {
+            throw new APIException("Invalid cursor value: " + value);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.project.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+  Conversions between the Double amounts of the API and products and the long minor units (cents) cart money is
+  stored and summed in. Sums of longs are exact, so a cart total never drifts from the sum of its lines.
+*/
+public final class Money {
+
+    // minor units per major unit; every price in the shop has two decimals
+    public static final int MINOR_UNITS = 100;
+
+    private Money() {
+    }
+
+    // BigDecimal.valueOf uses the shortest decimal form of the double, so 0.29 is 29 and not 28.999...
+    public static long toMinor(Double amount) {
+        if (amount == null) return 0;
+        return BigDecimal.valueOf(amount).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static Double toMajor(long minor) {
+        return BigDecimal.valueOf(minor, 2).doubleValue();
+    }
+}
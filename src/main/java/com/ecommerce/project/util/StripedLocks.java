@@ -0,0 +1,43 @@
+package com.ecommerce.project.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+  A fixed number of locks that keys are hashed onto: work on the same key is serialized, work on different keys
+  mostly runs in parallel, and memory does not grow with the number of keys.
+*/
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+
+    public StripedLocks(int stripes) {
+        if (stripes < 1) throw new IllegalArgumentException("stripes must be at least 1, was " + stripes);
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) locks[i] = new ReentrantLock();
+    }
+
+    public ReentrantLock get(Object key) {
+        return locks[index(key)];
+    }
+
+    public List<ReentrantLock> all() {
+        return List.of(locks);
+    }
+
+    // The locks of several keys, each once and always in the same order, so callers taking them in turn can't deadlock
+    public List<ReentrantLock> getAll(Collection<?> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Object key : keys) indexes.add(index(key));
+        List<ReentrantLock> result = new ArrayList<>(indexes.size());
+        for (int index : indexes) result.add(locks[index]);
+        return result;
+    }
+
+    private int index(Object key) {
+        return Math.floorMod(key.hashCode(), locks.length);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.EcommerceAppApplication;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.services.UserDetailsImpl;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Boots the application against the in-memory H2 database of the "benchmark" profile
+final class BenchmarkContext {
+
+    static final String USERNAME = "user1";
+
+    private BenchmarkContext() {
+    }
+
+    // args are command line properties ("--name=value"), so they win over the profile's files
+    static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(EcommerceAppApplication.class)
+                .profiles("benchmark")
+                .run(args);
+    }
+
+    // JMH may run @Setup and @Benchmark methods on different threads, so the login is made global
+    static User authenticate(ConfigurableApplicationContext context) {
+        User user = context.getBean(TransactionTemplate.class).execute(status ->
+                context.getBean(UserRepository.class).findByUserName(USERNAME).orElseThrow());
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        return user;
+    }
+
+    static List<Product> seedProducts(ConfigurableApplicationContext context, int count) {
+        CategoryRepository categoryRepository = context.getBean(CategoryRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+
+        Category category = new Category();
+        category.setCategoryName("Benchmark category");
+        category = categoryRepository.save(category);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setProductName("Benchmark product " + i);
+            product.setDescription("Benchmark product description " + i);
+            product.setImage("default.png");
+            product.setQuantity(Integer.MAX_VALUE);
+            product.setPrice(100.0 + i);
+            product.setDiscount(10.0);
+            product.setSpecialPrice(90.0 + i);
+            product.setCategory(category);
+            products.add(productRepository.save(product));
+        }
+        return products;
+    }
+}
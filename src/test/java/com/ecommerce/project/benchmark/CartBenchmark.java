@@ -0,0 +1,75 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// CartServiceImpl.addProductToCart, including the cart total update, against H2
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private CartRepository cartRepository;
+    private TransactionTemplate transactionTemplate;
+    private String email;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkContext.start();
+        cartService = context.getBean(CartService.class);
+        cartRepository = context.getBean(CartRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        email = BenchmarkContext.authenticate(context).getEmail();
+        List<Product> products = BenchmarkContext.seedProducts(context, 1);
+        productId = products.get(0).getProductId();
+    }
+
+    // the product may only be in the cart once, so every invocation starts from an empty cart
+    @Setup(Level.Invocation)
+    public void emptyCart() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Cart cart = cartRepository.findCartByEmail(email);
+            if (cart == null) return;
+            cart.getCartItems().clear();
+            cart.setTotalPrice(0.0);
+        });
+    }
+
+    // over HTTP the open-in-view session keeps the cart's items loadable while the DTO is built
+    @Benchmark
+    public CartDTO addProductToCart() {
+        return transactionTemplate.execute(status -> cartService.addProductToCart(productId, 2));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+}
@@ -0,0 +1,60 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.security.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// JWT verification done by AuthTokenFilter for every authenticated request, with and without the verified-token cache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"10000", "0"})
+    public int verifiedCacheMaxEntries;
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "mySecretKey12912738hdhcfjhdfdfvyudgyugyufddkgcjudgdcuigddicguidgc");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 30000000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCookie", "springBootEcom");
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxEntries", verifiedCacheMaxEntries);
+        jwtUtils.init();
+        token = jwtUtils.generateTokenFromUsername(BenchmarkContext.USERNAME);
+    }
+
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtUtils.parseClaims(token);
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String getUserNameFromJWTToken() {
+        return jwtUtils.getUserNameFromJWTToken(token);
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// OrderServiceImpl.placeOrder: cart lines -> order items, stock update and cart clearing, against H2
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBenchmark {
+
+    @Param({"1", "10"})
+    public int cartLines;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private CartRepository cartRepository;
+    private CartItemRepository cartItemRepository;
+    private TransactionTemplate transactionTemplate;
+    private List<Product> products;
+    private String email;
+    private Long cartId;
+    private Long addressId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkContext.start();
+        orderService = context.getBean(OrderService.class);
+        cartRepository = context.getBean(CartRepository.class);
+        cartItemRepository = context.getBean(CartItemRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        User user = BenchmarkContext.authenticate(context);
+        email = user.getEmail();
+        products = BenchmarkContext.seedProducts(context, cartLines);
+
+        Address address = new Address("Benchmark Street", "Benchmark Tower", "Springfield", "State", "Country", "123456");
+        address.setUser(user);
+        addressId = context.getBean(AddressRepository.class).save(address).getAddressId();
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cartId = cartRepository.save(cart).getCartId();
+    }
+
+    // placing an order empties the cart, so refill it before every invocation
+    @Setup(Level.Invocation)
+    public void fillCart() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Cart cart = cartRepository.findById(cartId).orElseThrow();
+            double totalPrice = 0.0;
+            for (Product product : products) {
+                CartItem cartItem = new CartItem();
+                cartItem.setCart(cart);
+                cartItem.setProduct(product);
+                cartItem.setQuantity(1);
+                cartItem.setDiscount(product.getDiscount());
+                cartItem.setProductPrice(product.getSpecialPrice());
+                cartItemRepository.save(cartItem);
+                totalPrice += product.getSpecialPrice();
+            }
+            cart.setTotalPrice(totalPrice);
+        });
+    }
+
+    @Benchmark
+    public OrderDTO placeOrder() {
+        return orderService.placeOrder(email, addressId, "card", "benchmark-pg", "pg-1", "success", "ok");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.mapper.ProductMapperImpl;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Maps one default-sized (50 product) catalog page, ModelMapper baseline vs the generated mapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private List<Product> page;
+    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        productMapper = new ProductMapperImpl();
+
+        Category category = new Category(1L, "Electronics", null);
+        page = new ArrayList<>();
+        for (long i = 0; i < PAGE_SIZE; i++) {
+            Product product = new Product();
+            product.setProductId(i);
+            product.setProductName("Product " + i);
+            product.setDescription("Description of product " + i);
+            product.setImage("default.png");
+            product.setQuantity(100);
+            product.setPrice(100.0 + i);
+            product.setDiscount(10.0);
+            product.setSpecialPrice(90.0 + i);
+            product.setCategory(category);
+            page.add(product);
+        }
+        // warm ModelMapper's type map so the benchmark measures steady-state mapping
+        modelMapper.map(page.get(0), ProductDTO.class);
+    }
+
+    @Benchmark
+    public List<ProductDTO> modelMapper() {
+        return page.stream().map(product -> modelMapper.map(product, ProductDTO.class)).toList();
+    }
+
+    @Benchmark
+    public List<ProductDTO> generatedMapper() {
+        return productMapper.toProductDTOs(page);
+    }
+}
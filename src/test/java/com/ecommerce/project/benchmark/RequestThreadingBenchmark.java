@@ -0,0 +1,108 @@
+package com.ecommerce.project.benchmark;
+
+import com.ecommerce.project.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Load test of the catalog and cart endpoints over HTTP, once per request threading mode.
+  64 concurrent clients; Throughput gives requests/ms and SampleTime the latency percentiles (p0.99).
+  The benchmark profile only runs the virtual-threads rows on a Java 21+ JVM, where the java21 profile turns them on.
+  Against H2 the requests barely wait, so run it with the
+  Postgres datasource to see the difference blocking JDBC makes, e.g.
+  mvn -Pbenchmark test-compile exec:exec -Djmh.includes=RequestThreadingBenchmark
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    private static final String PASSWORD = "password1";
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String cookie;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21+, this is Java " + Runtime.version().feature());
+        }
+        context = BenchmarkContext.start("--spring.threads.virtual.enabled=" + virtualThreads);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        List<Product> products = BenchmarkContext.seedProducts(context, 100);
+        cookie = signIn();
+        // the cart endpoint reads a cart with one item in it
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/carts/products/" + products.get(0).getProductId() + "/quantity/1"))
+                .header(HttpHeaders.COOKIE, cookie)
+                .POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    @Benchmark
+    public int catalogPage() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/public/products?pageNumber=0&pageSize=20")));
+    }
+
+    @Benchmark
+    public int userCart() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/carts/users/cart"))
+                .header(HttpHeaders.COOKIE, cookie));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private String signIn() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signin"))
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + BenchmarkContext.USERNAME + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String setCookie = response.headers().firstValue(HttpHeaders.SET_COOKIE)
+                .orElseThrow(() -> new IllegalStateException("Sign in failed: " + response.statusCode()));
+        return setCookie.split(";", 2)[0];
+    }
+
+    // a failed request must not be counted as a fast one
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.build().uri() + " answered " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
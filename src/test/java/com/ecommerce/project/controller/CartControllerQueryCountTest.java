@@ -0,0 +1,138 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.jwt.JwtUtils;
+import com.ecommerce.project.security.services.UserAuthorityCache;
+import com.ecommerce.project.security.services.UserDetailsImpl;
+import com.ecommerce.project.support.SqlStatementCounter;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class CartControllerQueryCountTest {
+
+    // cart lookup, cart insert, product, cart item check, cart item insert, cart update, cart items for the DTO
+    private static final int MAX_STATEMENTS_FOR_NEW_CART = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserAuthorityCache userAuthorityCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Cookie cookie;
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.findByUserName("user1").orElseThrow();
+        cookie = new Cookie("springBootEcom", jwtUtils.generateTokenFromUser(UserDetailsImpl.build(user)));
+        // the filter's role check is cached across requests, keep it out of the count
+        userAuthorityCache.currentAuthorities(user.getUserId());
+
+        category = new Category();
+        category.setCategoryName("Books");
+        category = categoryRepository.save(category);
+
+        product = saveProduct("Java Concurrency", 36.0);
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void addingToCartNeverReadsTheUser() throws Exception {
+        mockMvc.perform(post("/api/carts/products/{productId}/quantity/{quantity}", product.getProductId(), 2).cookie(cookie))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.totalPrice").value(72.0));
+
+        assertEquals(0, SqlStatementCounter.countTouching("users"), "Add to cart issued " + SqlStatementCounter.statements());
+        assertTrue(SqlStatementCounter.count() <= MAX_STATEMENTS_FOR_NEW_CART,
+                "Add to cart issued " + SqlStatementCounter.statements());
+    }
+
+    @Test
+    void retriedAddToCartIsAnsweredFromTheIdempotencyStore() throws Exception {
+        mockMvc.perform(post("/api/carts/products/{productId}/quantity/{quantity}", product.getProductId(), 2)
+                        .cookie(cookie).header("Idempotency-Key", "retry-1"))
+                .andExpect(status().isCreated());
+
+        SqlStatementCounter.reset();
+        // without the key this would fail with "already exists in the cart"
+        mockMvc.perform(post("/api/carts/products/{productId}/quantity/{quantity}", product.getProductId(), 2)
+                        .cookie(cookie).header("Idempotency-Key", "retry-1"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.totalPrice").value(72.0));
+        assertEquals(0, SqlStatementCounter.count(), "Replay issued " + SqlStatementCounter.statements());
+    }
+
+    @Test
+    void cartIsReadInASingleStatement() throws Exception {
+        addToCart(product, 2);
+        addToCart(saveProduct("Effective Java", 30.0), 1);
+        addToCart(saveProduct("Refactoring", 25.0), 3);
+        productRepository.flush();
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/carts/users/cart").cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPrice").value(177.0))
+                .andExpect(jsonPath("$.products.length()").value(3))
+                .andExpect(jsonPath("$.products[0].productName").value("Java Concurrency"))
+                .andExpect(jsonPath("$.products[0].quantity").value(2));
+
+        assertEquals(1, SqlStatementCounter.count(), "Cart read issued " + SqlStatementCounter.statements());
+        // the line quantity must not leak into the catalog's stock
+        assertEquals(10, productRepository.findById(product.getProductId()).orElseThrow().getQuantity());
+    }
+
+    private void addToCart(Product product, int quantity) throws Exception {
+        mockMvc.perform(post("/api/carts/products/{productId}/quantity/{quantity}", product.getProductId(), quantity).cookie(cookie))
+                .andExpect(status().isCreated());
+    }
+
+    private Product saveProduct(String name, double specialPrice) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription(name + " book");
+        product.setQuantity(10);
+        product.setPrice(specialPrice + 4.0);
+        product.setSpecialPrice(specialPrice);
+        product.setDiscount(10.0);
+        product.setCategory(category);
+        return productRepository.saveAndFlush(product);
+    }
+}
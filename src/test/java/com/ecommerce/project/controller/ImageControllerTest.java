@@ -0,0 +1,125 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.util.ImageVariant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ImageControllerTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final String ORIGINAL = HASH + ".png";
+    private static final String THUMBNAIL = ImageVariant.THUMBNAIL.fileName(ORIGINAL);
+    private static final byte[] BYTES = new byte[1000];
+
+    private static final Path folder = createFolder();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void imageFolder(DynamicPropertyRegistry registry) {
+        registry.add("project.image", () -> folder.toString());
+    }
+
+    @BeforeAll
+    static void writeImages() throws IOException {
+        for (int i = 0; i < BYTES.length; i++) BYTES[i] = (byte) i;
+        Files.write(folder.resolve(ORIGINAL), BYTES);
+        Files.write(folder.resolve(THUMBNAIL), Arrays.copyOf(BYTES, 100));
+    }
+
+    private static Path createFolder() {
+        try {
+            return Files.createTempDirectory("images-");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void contentHashedImageIsServedAsImmutable() throws Exception {
+        mockMvc.perform(get("/images/{fileName}", ORIGINAL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().bytes(BYTES));
+    }
+
+    @Test
+    void matchingEtagIsAnsweredWithoutTheFile() throws Exception {
+        // the name alone decides: this file does not exist, yet its ETag is known to be current
+        String missing = "cd".repeat(32) + ".jpg";
+        mockMvc.perform(get("/images/{fileName}", missing).header(HttpHeaders.IF_NONE_MATCH, "\"" + "cd".repeat(32) + "\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/images/{fileName}", missing))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void rangesAreServedPartially() throws Exception {
+        byte[] body = mockMvc.perform(get("/images/{fileName}", ORIGINAL).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/1000"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(Arrays.copyOfRange(BYTES, 10, 20), body);
+
+        mockMvc.perform(get("/images/{fileName}", ORIGINAL).header(HttpHeaders.RANGE, "bytes=-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 995-999/1000"));
+        mockMvc.perform(get("/images/{fileName}", ORIGINAL).header(HttpHeaders.RANGE, "bytes=5000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+        // a stale If-Range gets the whole file
+        mockMvc.perform(get("/images/{fileName}", ORIGINAL).header(HttpHeaders.RANGE, "bytes=10-19")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void thumbnailIsServedFromMemoryAndMissingVariantsFallBack() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/images/{fileName}", THUMBNAIL))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(Arrays.copyOf(BYTES, 100)));
+        }
+
+        mockMvc.perform(get("/images/{fileName}", ImageVariant.DETAIL.fileName(ORIGINAL)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, no-cache"))
+                .andExpect(content().bytes(BYTES));
+    }
+
+    @Test
+    void namesOutsideTheFolderAreRejected() throws Exception {
+        mockMvc.perform(get("/images/{fileName}", "..%2Fapplication.properties"))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/images/{fileName}", ".hidden.png"))
+                .andExpect(status().isNotFound());
+    }
+}
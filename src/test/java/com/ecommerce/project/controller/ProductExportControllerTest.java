@@ -0,0 +1,111 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.jwt.JwtUtils;
+import com.ecommerce.project.security.services.UserDetailsImpl;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ProductExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Cookie cookie;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        User admin = userRepository.findByUserName("admin").orElseThrow();
+        cookie = new Cookie("springBootEcom", jwtUtils.generateTokenFromUser(UserDetailsImpl.build(admin)));
+
+        category = new Category();
+        category.setCategoryName("Exported tools");
+        category = categoryRepository.save(category);
+        saveProduct("Exported saw");
+        saveProduct("Exported drill");
+    }
+
+    // no async dispatch, so no async request timeout can cut a long export short
+    @Test
+    void exportIsWrittenOnTheRequestThread() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/admin/products/export")
+                        .param("categoryId", category.getCategoryId().toString())
+                        .param("format", "csv")
+                        .cookie(cookie))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products.csv"))
+                .andReturn();
+
+        assertTrue(result.getResponse().getContentType().startsWith("text/csv"), result.getResponse().getContentType());
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        // header and the two products
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].contains("Exported saw") || lines[2].contains("Exported saw"));
+    }
+
+    @Test
+    void ndjsonIsTheDefault() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/admin/products/export")
+                        .param("categoryId", category.getCategoryId().toString())
+                        .cookie(cookie))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTrue(result.getResponse().getContentType().startsWith("application/x-ndjson"), result.getResponse().getContentType());
+        assertEquals(2, result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    private void saveProduct(String name) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription(name + " description");
+        product.setQuantity(5);
+        product.setPrice(40.0);
+        product.setDiscount(0.0);
+        product.setSpecialPrice(40.0);
+        product.setCategory(category);
+        productRepository.save(product);
+    }
+}
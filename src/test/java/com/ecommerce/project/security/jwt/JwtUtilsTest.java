@@ -0,0 +1,55 @@
+package com.ecommerce.project.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilsTest {
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "mySecretKey12912738hdhcfjhdfdfvyudgyugyufddkgcjudgdcuigddicguidgc");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCookie", "springBootEcom");
+        ReflectionTestUtils.setField(jwtUtils, "verifiedCacheMaxEntries", 100);
+        jwtUtils.init();
+    }
+
+    @Test
+    void repeatedTokenIsServedFromTheVerifiedCache() {
+        String token = jwtUtils.generateTokenFromUsername("user1");
+
+        Claims first = jwtUtils.parseClaims(token);
+        assertEquals("user1", first.getSubject());
+        assertSame(first, jwtUtils.parseClaims(token));
+        assertEquals("user1", jwtUtils.getUserNameFromJWTToken(token));
+        assertTrue(jwtUtils.validateJwtToken(token));
+    }
+
+    @Test
+    void expiredAndMalformedTokensAreRejected() {
+        String expired = Jwts.builder()
+                .subject("user1")
+                .issuedAt(new Date(System.currentTimeMillis() - 120000))
+                .expiration(new Date(System.currentTimeMillis() - 60000))
+                .signWith(jwtUtils.key())
+                .compact();
+
+        assertNull(jwtUtils.parseClaims(expired));
+        assertFalse(jwtUtils.validateJwtToken(expired));
+        assertFalse(jwtUtils.validateJwtToken("not-a-token"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecommerce.project.security.jwt;
+
+import com.ecommerce.project.model.AppRole;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.RoleRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.services.UserAuthorityCache;
+import com.ecommerce.project.security.services.UserDetailsImpl;
+import com.ecommerce.project.support.SqlStatementCounter;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class StatelessAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserAuthorityCache userAuthorityCache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUserName("user1").orElseThrow();
+        userAuthorityCache.invalidateAll();
+    }
+
+    @Test
+    void claimsTokenAuthenticatesWithoutLoadingTheUserOnRepeatRequests() throws Exception {
+        Cookie cookie = cookie(jwtUtils.generateTokenFromUser(UserDetailsImpl.build(user)));
+
+        mockMvc.perform(get("/api/auth/user").cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles[0]").value("ROLE_USER"));
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/auth/user").cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("user1"));
+        assertEquals(0, SqlStatementCounter.countTouching("users"));
+    }
+
+    @Test
+    void tokensDoNotCarryRoles() {
+        String token = jwtUtils.generateTokenFromUser(UserDetailsImpl.build(user));
+        assertNull(jwtUtils.parseClaims(token).get("roles"));
+        assertTrue(jwtUtils.getUserDetailsFromClaims(jwtUtils.parseClaims(token)).getAuthorities().isEmpty());
+    }
+
+    @Test
+    void roleChangesApplyToTokensIssuedBeforeTheChange() throws Exception {
+        Cookie cookie = cookie(jwtUtils.generateTokenFromUser(UserDetailsImpl.build(user)));
+        mockMvc.perform(get("/api/auth/user").cookie(cookie))
+                .andExpect(jsonPath("$.roles.length()").value(1));
+
+        user.setRoles(new HashSet<>(List.of(
+                roleRepository.findByRoleName(AppRole.ROLE_USER).orElseThrow(),
+                roleRepository.findByRoleName(AppRole.ROLE_SELLER).orElseThrow())));
+        userRepository.saveAndFlush(user);
+        userAuthorityCache.evict(user.getUserId());
+
+        mockMvc.perform(get("/api/auth/user").cookie(cookie))
+                .andExpect(jsonPath("$.roles.length()").value(2));
+    }
+
+    @Test
+    void tokensWithoutUserClaimsStillAuthenticate() throws Exception {
+        mockMvc.perform(get("/api/auth/user").cookie(cookie(jwtUtils.generateTokenFromUsername("user1"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(user.getUserId()));
+    }
+
+    private static Cookie cookie(String token) {
+        return new Cookie("springBootEcom", token);
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.util.Money;
+import com.ecommerce.project.support.ProductFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Not @Transactional: every request commits on its own thread, as in parallel tabs of one user
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class CartConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int PRODUCTS = 8;
+    private static final int CLICKS_PER_THREAD = 25;
+    private static final int REPRICE_ROUNDS = 10;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private CartPricing cartPricing;
+
+    @Test
+    void oneUsersParallelRequestsKeepTheCartConsistent() throws Exception {
+        User user = userRepository.save(new User("hammer", "hammer@example.com", "password"));
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) products.add(productFixtures.product("Hammered product " + i, 1.25 + i, 10_000));
+
+        // every thread adds one of the products to a cart that doesn't exist yet
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        runConcurrently(user, thread -> () -> {
+            try {
+                cartService.addProductToCart(products.get(thread % PRODUCTS).getProductId(), 1);
+                added.incrementAndGet();
+            } catch (APIException e) {
+                duplicates.incrementAndGet();
+            }
+            return null;
+        });
+
+        List<Cart> carts = cartRepository.findAll().stream()
+                .filter(cart -> cart.getUser().getUserId().equals(user.getUserId())).toList();
+        assertEquals(1, carts.size());
+        Long cartId = carts.get(0).getCartId();
+        assertEquals(PRODUCTS, added.get());
+        assertEquals(THREADS - PRODUCTS, duplicates.get());
+        assertEquals(PRODUCTS, cartItemRepository.findByCartIdWithProduct(cartId).size());
+
+        // then they all click +1 on their product at once
+        runConcurrently(user, thread -> () -> {
+            for (int i = 0; i < CLICKS_PER_THREAD; i++) {
+                cartService.updateProductQuantityIncart(products.get(thread % PRODUCTS).getProductId(), 1);
+            }
+            return null;
+        });
+
+        List<CartItem> lines = cartItemRepository.findByCartIdWithProduct(cartId);
+        int expectedQuantity = 1 + THREADS / PRODUCTS * CLICKS_PER_THREAD;
+        for (CartItem line : lines) assertEquals(expectedQuantity, line.getQuantity());
+        // no total update was lost on the way
+        assertEquals(CartPricing.totalOf(lines), cartRepository.findById(cartId).orElseThrow().getTotalPriceMinor());
+    }
+
+    @Test
+    void repricingWhileTheUserClicksLosesNoUpdate() throws Exception {
+        User user = userRepository.save(new User("repricer", "repricer@example.com", "password"));
+        Product clicked = productFixtures.product("Clicked while repriced", 1.25, 10_000);
+        Product repriced = productFixtures.product("Repriced while clicked", 2.0, 10_000);
+        runConcurrently(user, thread -> () -> {
+            if (thread < 2) cartService.addProductToCart((thread == 0 ? clicked : repriced).getProductId(), 1);
+            return null;
+        });
+        Long cartId = cartRepository.findCartByUserId(user.getUserId()).getCartId();
+
+        // each round one thread changes the other product's price while the rest click +1 at once; the next
+        // reprice would recompute the total and hide a lost update, so the cart is checked after every round
+        for (int round = 0; round < REPRICE_ROUNDS; round++) {
+            double price = round % 2 == 0 ? 3.5 : 2.0;
+            runConcurrently(user, thread -> () -> {
+                if (thread == 0) {
+                    repriced.setSpecialPrice(price);
+                    productRepository.save(repriced);
+                    cartPricing.repriceProduct(repriced.getProductId(), price);
+                } else {
+                    cartService.updateProductQuantityIncart(clicked.getProductId(), 1);
+                }
+                return null;
+            });
+
+            List<CartItem> lines = cartItemRepository.findByCartIdWithProduct(cartId);
+            for (CartItem line : lines) {
+                if (line.getProduct().getProductId().equals(clicked.getProductId())) {
+                    assertEquals(1 + (THREADS - 1) * (round + 1), line.getQuantity());
+                } else {
+                    assertEquals(Money.toMinor(price), line.getProductPriceMinor());
+                }
+            }
+            assertEquals(CartPricing.totalOf(lines), cartRepository.findById(cartId).orElseThrow().getTotalPriceMinor(),
+                    "round " + round);
+        }
+    }
+
+    private interface Task {
+        Callable<Void> forThread(int thread);
+    }
+
+    // all threads start together; any failure other than the expected ones fails the test
+    private void runConcurrently(User user, Task task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                Callable<Void> work = task.forThread(thread);
+                futures.add(executor.submit(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken(user.getUserName(), null, List.of()));
+                    try {
+                        start.await();
+                        return work.call();
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
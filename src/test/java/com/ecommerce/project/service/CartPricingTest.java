@@ -0,0 +1,179 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.CartRepriceResultDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.support.ProductFixtures;
+import com.ecommerce.project.util.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"project.cart.reprice.batch-size=2", "project.cart.reprice.async-threshold=2"})
+@ActiveProfiles("test")
+class CartPricingTest {
+
+    @Autowired
+    private CartPricing cartPricing;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Test
+    void lineChangesMoveTheTotalExactly() {
+        Cart cart = new Cart();
+        CartItem first = new CartItem();
+        CartItem second = new CartItem();
+
+        // 0.1 + 0.2 and ten times 0.1 are not what they look like in double arithmetic
+        cartPricing.setLine(cart, first, 0.1, 1);
+        cartPricing.setLine(cart, second, 0.2, 1);
+        assertEquals(0.3, cart.getTotalPrice());
+        for (int quantity = 2; quantity <= 10; quantity++) cartPricing.setLine(cart, first, 0.1, quantity);
+        assertEquals(1.2, cart.getTotalPrice());
+
+        // a price change reprices the units already in the cart too
+        cartPricing.setLine(cart, first, 0.15, 10);
+        assertEquals(170, cart.getTotalPriceMinor());
+        cartPricing.removeLine(cart, first);
+        assertEquals(20, cart.getTotalPriceMinor());
+        assertEquals(CartPricing.totalOf(List.of(second)), cart.getTotalPriceMinor());
+    }
+
+    @Test
+    void verifyReturnsTheTotalOfTheLines() {
+        Cart cart = new Cart();
+        CartItem line = new CartItem();
+        cartPricing.setLine(cart, line, 19.99, 3);
+        cart.setTotalPriceMinor(5000);
+
+        assertEquals(5997, cartPricing.verify(cart, List.of(line)));
+        assertEquals(5000, cart.getTotalPriceMinor());
+    }
+
+    @Test
+    void repriceAllCartsUpdatesLinesAndTotalsInPlace() {
+        Product product = productFixtures.product("Reprice product", 10.0, 100);
+        Long[] cartIds = new Long[3];
+        for (int i = 0; i < cartIds.length; i++) cartIds[i] = cartWith(product, i + 1, "reprice" + i);
+        // one total drifted on its own, then the product gets cheaper
+        Cart drifted = cartRepository.findById(cartIds[0]).orElseThrow();
+        drifted.setTotalPriceMinor(1);
+        cartRepository.save(drifted);
+        product.setSpecialPrice(7.35);
+        product.setDiscount(26.5);
+        productRepository.save(product);
+
+        CartRepriceResultDTO result = cartPricing.repriceAllCarts();
+
+        assertTrue(result.getLinesRepriced() >= 3, result.toString());
+        assertTrue(result.getTotalsCorrected() >= 3, result.toString());
+        assertTrue(result.getBatches() >= 2, result.toString());
+        assertRepriced(cartIds, 735, 26.5);
+        // nothing left to do on a second run
+        assertEquals(0, cartPricing.repriceAllCarts().getLinesRepriced());
+    }
+
+    @Test
+    void productUpdateRepricesItsCartsInPlace() throws Exception {
+        Product single = productFixtures.product("Single cart product", 10.0, 100);
+        Long[] singleCart = {cartWith(single, 1, "single")};
+        Product popular = productFixtures.product("Popular product", 10.0, 100);
+        Long[] popularCarts = new Long[3];
+        for (int i = 0; i < popularCarts.length; i++) popularCarts[i] = cartWith(popular, i + 1, "popular" + i);
+
+        // one line is repriced inline, three are above the threshold and repriced in the background
+        productService.updateProduct(repriced(single, 8.25, 5.0), single.getProductId());
+        assertRepriced(singleCart, 825, 5.0);
+
+        productService.updateProduct(repriced(popular, 4.5, 55.0), popular.getProductId());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cartRepository.findById(popularCarts[2]).orElseThrow().getTotalPriceMinor() != 1350
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertRepriced(popularCarts, 450, 55.0);
+    }
+
+    @Test
+    void halfCentsRoundTheSameWayInEveryReprice() {
+        // 1.005 is 1.00499999... as a double: rounding the double itself gives 100
+        assertEquals(101, Money.toMinor(1.005));
+
+        Product updated = productFixtures.product("Half cent product", 10.0, 100);
+        Long[] updatedCart = {cartWith(updated, 1, "halfcent")};
+        productService.updateProduct(repriced(updated, 1.005, 0.0), updated.getProductId());
+        assertRepriced(updatedCart, 101, 0.0);
+
+        Product bulk = productFixtures.product("Half cent bulk product", 10.0, 100);
+        Long[] bulkCart = {cartWith(bulk, 1, "halfcentbulk")};
+        bulk.setSpecialPrice(1.005);
+        productRepository.save(bulk);
+        cartPricing.repriceAllCarts();
+        assertRepriced(bulkCart, 101, 0.0);
+        // and the bulk job agrees with the lines priced in Java
+        assertEquals(0, cartPricing.repriceAllCarts().getLinesRepriced());
+    }
+
+    private Long cartWith(Product product, int quantity, String userName) {
+        Cart cart = new Cart();
+        cart.setUser(userRepository.save(new User(userName, userName + "@example.com", "password")));
+        CartItem line = new CartItem();
+        line.setCart(cart);
+        line.setProduct(product);
+        line.setDiscount(product.getDiscount());
+        cartPricing.setLine(cart, line, product.getSpecialPrice(), quantity);
+        cart = cartRepository.save(cart);
+        cartItemRepository.save(line);
+        return cart.getCartId();
+    }
+
+    private ProductDTO repriced(Product product, double specialPrice, double discount) {
+        ProductDTO productDTO = productMapper.toProductDTO(product);
+        productDTO.setSpecialPrice(specialPrice);
+        productDTO.setDiscount(discount);
+        return productDTO;
+    }
+
+    // cart i holds i + 1 units
+    private void assertRepriced(Long[] cartIds, long unitPriceMinor, double discount) {
+        for (int i = 0; i < cartIds.length; i++) {
+            assertEquals(unitPriceMinor * (i + 1), cartRepository.findById(cartIds[i]).orElseThrow().getTotalPriceMinor());
+            CartItem line = cartItemRepository.findByCartIdWithProduct(cartIds[i]).get(0);
+            assertEquals(unitPriceMinor, line.getProductPriceMinor());
+            assertEquals(discount, line.getDiscount());
+        }
+    }
+}
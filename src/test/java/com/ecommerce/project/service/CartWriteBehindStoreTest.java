@@ -0,0 +1,277 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.service.CartJournal.Change;
+import com.ecommerce.project.support.ProductFixtures;
+import com.ecommerce.project.support.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the timer is kept out of the way, batches are written by calling flush()
+@SpringBootTest(properties = {"project.cart.write-behind.enabled=true", "project.cart.write-behind.flush-ms=3600000"})
+@ActiveProfiles("test")
+class CartWriteBehindStoreTest {
+
+    @DynamicPropertySource
+    static void journalDir(DynamicPropertyRegistry registry) {
+        registry.add("project.cart.write-behind.journal-dir", () -> {
+            try {
+                return Files.createTempDirectory("cart-journal").toString();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @TempDir
+    Path crashJournal;
+
+    @Autowired
+    private CartWriteBehindStore cartWriteBehindStore;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartPricing cartPricing;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CartLocks cartLocks;
+
+    @Test
+    void clicksStayInMemoryUntilTheBatchIsWritten() {
+        User user = user("clicker");
+        Product product = productFixtures.product("Clicked product", 2.5, 100);
+        Long cartId = cartWith(user, product, 1);
+
+        // the first click reads the cart, the next ones don't touch the database
+        cartWriteBehindStore.updateQuantity(user.getUserId(), product.getProductId(), 1);
+        SqlStatementCounter.reset();
+        for (int i = 0; i < 8; i++) cartWriteBehindStore.updateQuantity(user.getUserId(), product.getProductId(), 1);
+        CartDTO cart = cartWriteBehindStore.updateQuantity(user.getUserId(), product.getProductId(), -1);
+        assertEquals(0, SqlStatementCounter.count(), SqlStatementCounter.statements().toString());
+
+        assertEquals(9, cart.getProducts().get(0).getQuantity());
+        assertEquals(22.5, cart.getTotalPrice());
+        assertEquals(1, line(cartId).getQuantity());
+
+        cartWriteBehindStore.flush();
+
+        assertEquals(9, line(cartId).getQuantity());
+        assertEquals(2250, cartRepository.findById(cartId).orElseThrow().getTotalPriceMinor());
+    }
+
+    @Test
+    void checkoutOrdersTheQuantitiesHeldInMemory() {
+        User user = user("checkout");
+        Product product = productFixtures.product("Checked out product", 4.0, 100);
+        cartWith(user, product, 1);
+        Address address = new Address("Write Street", "Behind House", "Springfield", "State", "Country", "123456");
+        address.setUser(user);
+        address = addressRepository.save(address);
+
+        cartWriteBehindStore.updateQuantity(user.getUserId(), product.getProductId(), 1);
+        cartWriteBehindStore.updateQuantity(user.getUserId(), product.getProductId(), 1);
+        OrderDTO order = orderService.placeOrder(user.getEmail(), address.getAddressId(), "card", "test-pg", "pg-1", "success", "ok");
+
+        assertEquals(3, order.getOrderItems().get(0).getQuantity());
+        assertEquals(12.0, order.getTotalAmount());
+        assertNull(cartWriteBehindStore.getCart(user.getUserId()));
+    }
+
+    @Test
+    void rejectedClicksChangeNothing() {
+        User user = user("rejected");
+        Product product = productFixtures.product("Scarce product", 1.0, 2);
+        Long cartId = cartWith(user, product, 2);
+
+        assertThrows(APIException.class, () -> cartWriteBehindStore.updateQuantity(user.getUserId(), product.getProductId(), 1));
+        CartDTO cart = cartWriteBehindStore.getCart(user.getUserId());
+        assertEquals(2, cart.getProducts().get(0).getQuantity());
+
+        cartWriteBehindStore.flushUser(user.getUserId());
+        assertEquals(2, line(cartId).getQuantity());
+    }
+
+    @Test
+    void acknowledgedClicksSurviveACrash() throws Exception {
+        User user = user("crasher");
+        Product kept = productFixtures.product("Kept after crash", 3.0, 100);
+        Product removed = productFixtures.product("Removed before crash", 5.0, 100);
+        Long cartId = cartWith(user, kept, 1);
+        CartItem removedLine = new CartItem();
+        removedLine.setCart(cartRepository.findById(cartId).orElseThrow());
+        removedLine.setProduct(removed);
+        removedLine.setProductPriceMinor(500);
+        removedLine.setQuantity(1);
+        cartItemRepository.save(removedLine);
+
+        CartWriteBehindStore crashed = store(crashJournal);
+        crashed.updateQuantity(user.getUserId(), kept.getProductId(), 1);
+        crashed.updateQuantity(user.getUserId(), kept.getProductId(), 1);
+        crashed.updateQuantity(user.getUserId(), removed.getProductId(), -1);
+        assertEquals(1, line(cartId).getQuantity());
+
+        // nothing was flushed or closed; the next start finds the clicks in the journal
+        store(crashJournal).afterSingletonsInstantiated();
+
+        assertEquals(3, line(cartId).getQuantity());
+        assertEquals(1, cartItemRepository.findByCartIdWithProduct(cartId).size());
+        assertEquals(900, cartRepository.findById(cartId).orElseThrow().getTotalPriceMinor());
+        try (var segments = Files.list(crashJournal)) {
+            assertEquals(1, segments.count());
+        }
+    }
+
+    @Test
+    void aBatchRacingAClickNeverDropsItFromTheJournal() throws Exception {
+        User user = user("racer");
+        Product product = productFixtures.product("Raced product", 2.0, 100);
+        Long cartId = cartWith(user, product, 1);
+
+        // the batch starts while the click sits between its journal append and its pending entry
+        AtomicReference<CartWriteBehindStore> store = new AtomicReference<>();
+        AtomicReference<Thread> batch = new AtomicReference<>();
+        CartJournal journal = new CartJournal(crashJournal, false) {
+            @Override
+            public Change append(long cartId, long productId, int quantity) {
+                Change change = super.append(cartId, productId, quantity);
+                if (batch.get() == null) {
+                    batch.set(new Thread(() -> store.get().flush()));
+                    batch.get().start();
+                    try {
+                        batch.get().join(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return change;
+            }
+        };
+        store.set(store(journal));
+        store.get().updateQuantity(user.getUserId(), product.getProductId(), 1);
+        batch.get().join();
+
+        // then the process dies before another batch
+        store(new CartJournal(crashJournal, false)).afterSingletonsInstantiated();
+
+        assertEquals(2, line(cartId).getQuantity());
+    }
+
+    @Test
+    void aUsersFlushDoesNotWaitForABatchWritingOtherCarts() throws Exception {
+        User batched = user("batched");
+        User other = user("unbatched");
+        Product product = productFixtures.product("Batched product", 1.5, 100);
+        Long batchedCart = cartWith(batched, product, 1);
+        Long otherCart = cartWith(other, product, 1);
+
+        // the batch stops once its cart is in the database, still holding the batch lock
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CartJournal journal = new CartJournal(crashJournal, false) {
+            @Override
+            public void markWritten(long cartId, long upToSeq) {
+                super.markWritten(cartId, upToSeq);
+                if (cartId != batchedCart) return;
+                written.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        CartWriteBehindStore store = store(journal);
+        store.updateQuantity(batched.getUserId(), product.getProductId(), 1);
+        Thread batch = new Thread(store::flush);
+        batch.start();
+        try {
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            store.updateQuantity(other.getUserId(), product.getProductId(), 1);
+            CompletableFuture<Boolean> flushed = CompletableFuture.supplyAsync(() -> store.flushUser(other.getUserId()));
+            assertTrue(flushed.get(5, TimeUnit.SECONDS));
+            assertEquals(2, line(otherCart).getQuantity());
+        } finally {
+            release.countDown();
+            batch.join();
+        }
+        assertEquals(2, line(batchedCart).getQuantity());
+    }
+
+    private CartWriteBehindStore store(Path journal) throws Exception {
+        return store(new CartJournal(journal, false));
+    }
+
+    private CartWriteBehindStore store(CartJournal journal) {
+        return new CartWriteBehindStore(cartRepository, cartItemRepository, transactionManager, cartLocks, journal, 100, 60_000);
+    }
+
+    private CartItem line(Long cartId) {
+        return cartItemRepository.findByCartIdWithProduct(cartId).get(0);
+    }
+
+    private User user(String name) {
+        return userRepository.save(new User(name, name + "@example.com", "password"));
+    }
+
+    private Long cartWith(User user, Product product, int quantity) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        CartItem line = new CartItem();
+        line.setCart(cart);
+        line.setProduct(product);
+        line.setDiscount(product.getDiscount());
+        cartPricing.setLine(cart, line, product.getSpecialPrice(), quantity);
+        cart = cartRepository.save(cart);
+        cartItemRepository.save(line);
+        return cart.getCartId();
+    }
+}
@@ -0,0 +1,133 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.ConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(100, 60000, 10000);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void retryReturnsTheStoredResponse() {
+        ResponseEntity<String> first = store.execute("key-1", 1L, "checkout", "a", this::order);
+        ResponseEntity<String> retry = store.execute("key-1", 1L, "checkout", "a", this::order);
+
+        assertSame(first, retry);
+        assertEquals(1, executions.get());
+        // the same key from another user or endpoint is a different request
+        store.execute("key-1", 2L, "checkout", "a", this::order);
+        store.execute("key-1", 1L, "add-to-cart", "a", this::order);
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void concurrentDuplicatesCollapseOntoOneExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<ResponseEntity<String>> first = executor.submit(() -> store.execute("key-2", 1L, "checkout", "a", () -> {
+                started.countDown();
+                await(release);
+                return order();
+            }));
+            started.await();
+            Future<ResponseEntity<String>> duplicate = executor.submit(() -> store.execute("key-2", 1L, "checkout", "a", this::order));
+            release.countDown();
+
+            assertSame(first.get(), duplicate.get());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void aDuplicateStopsWaitingAfterWaitMs() throws Exception {
+        IdempotencyStore impatient = new IdempotencyStore(100, 60000, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<String>> first = executor.submit(() -> impatient.execute("key-4", 1L, "checkout", "a", () -> {
+                started.countDown();
+                await(release);
+                return order();
+            }));
+            started.await();
+
+            assertThrows(ConflictException.class, () -> impatient.execute("key-4", 1L, "checkout", "a", this::order));
+            release.countDown();
+            // the first request still finishes, and its response is what a later retry gets
+            assertSame(first.get(), impatient.execute("key-4", 1L, "checkout", "a", this::order));
+            assertEquals(1, executions.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void runningExecutionsAreNotEvicted() throws Exception {
+        IdempotencyStore small = new IdempotencyStore(1, 60000, 10000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<String>> running = executor.submit(() -> small.execute("running", 1L, "checkout", "a", () -> {
+                started.countDown();
+                await(release);
+                return order();
+            }));
+            started.await();
+            // fills the store beyond its single entry, the running one must stay
+            small.execute("done", 1L, "checkout", "a", this::order);
+
+            Future<ResponseEntity<String>> duplicate = executor.submit(() -> small.execute("running", 1L, "checkout", "a", this::order));
+            release.countDown();
+            assertSame(running.get(), duplicate.get());
+            assertEquals(2, executions.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void failuresAreNotStoredAndMismatchedRequestsAreRejected() {
+        assertThrows(APIException.class, () -> store.execute("key-3", 1L, "checkout", "a", () -> {
+            throw new APIException("Cart is Empty");
+        }));
+        store.execute("key-3", 1L, "checkout", "a", this::order);
+        assertEquals(1, executions.get());
+
+        assertThrows(APIException.class, () -> store.execute("key-3", 1L, "checkout", "b", this::order));
+        assertEquals(1, executions.get());
+    }
+
+    private ResponseEntity<String> order() {
+        return new ResponseEntity<>("order " + executions.incrementAndGet(), HttpStatus.CREATED);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
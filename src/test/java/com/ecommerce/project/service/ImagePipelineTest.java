@@ -0,0 +1,102 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.storage.LocalObjectStorage;
+import com.ecommerce.project.util.ImageVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImagePipelineTest {
+
+    @TempDir
+    Path folder;
+
+    private FileServiceImpl fileService;
+    private ImageProcessor imageProcessor;
+
+    @BeforeEach
+    void setUp() {
+        LocalObjectStorage storage = new LocalObjectStorage(folder);
+        fileService = new FileServiceImpl(storage);
+        imageProcessor = new ImageProcessor(storage, new ThreadPoolTaskExecutor());
+    }
+
+    @Test
+    void identicalUploadsAreStoredOnce() throws Exception {
+        byte[] png = png(40, 20);
+
+        String first = fileService.uploadImage(new MockMultipartFile("Image", "mat.png", "image/png", png));
+        String second = fileService.uploadImage(new MockMultipartFile("Image", "copy of mat.PNG", "image/png", png));
+        String other = fileService.uploadImage(new MockMultipartFile("Image", "mat.png", "image/png", png(41, 20)));
+
+        assertEquals(first, second);
+        assertTrue(ImageVariant.isContentHashed(first), first);
+        assertTrue(!first.equals(other));
+        try (Stream<Path> files = Files.list(folder)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void variantsFitTheirBoxAndKeepTheAspectRatio() throws Exception {
+        String fileName = fileService.uploadImage(new MockMultipartFile("Image", "banner.png", "image/png", png(2000, 500)));
+
+        imageProcessor.generateVariants(fileName);
+
+        assertTrue(imageProcessor.hasAllVariants(fileName));
+        BufferedImage thumbnail = ImageIO.read(folder.resolve(ImageVariant.THUMBNAIL.fileName(fileName)).toFile());
+        assertEquals(150, thumbnail.getWidth());
+        assertEquals(38, thumbnail.getHeight());
+        BufferedImage detail = ImageIO.read(folder.resolve(ImageVariant.DETAIL.fileName(fileName)).toFile());
+        assertEquals(1024, detail.getWidth());
+        assertEquals("/images/" + ImageVariant.LISTING.fileName(fileName), ImageVariant.urls(fileName).get("listing"));
+    }
+
+    @Test
+    void smallImagesAreNotEnlarged() throws Exception {
+        String fileName = fileService.uploadImage(new MockMultipartFile("Image", "icon.png", "image/png", png(64, 64)));
+
+        imageProcessor.generateVariants(fileName);
+
+        BufferedImage listing = ImageIO.read(folder.resolve(ImageVariant.LISTING.fileName(fileName)).toFile());
+        assertEquals(64, listing.getWidth());
+        assertEquals(64, listing.getHeight());
+    }
+
+    @Test
+    void variantsOfUnwritableFormatsAreNamedAfterThePngWritten() throws Exception {
+        // stands in for a webp upload: the extension ImageIO has no writer for decides
+        String fileName = fileService.uploadImage(new MockMultipartFile("Image", "photo.webp", "image/webp", png(300, 200)));
+
+        imageProcessor.generateVariants(fileName);
+
+        String thumbnail = ImageVariant.THUMBNAIL.fileName(fileName);
+        assertTrue(thumbnail.endsWith(".webp.png"), thumbnail);
+        assertTrue(imageProcessor.hasAllVariants(fileName));
+        byte[] bytes = Files.readAllBytes(folder.resolve(thumbnail));
+        assertEquals("PNG", new String(bytes, 1, 3, StandardCharsets.US_ASCII));
+        assertEquals(ImageVariant.THUMBNAIL, ImageVariant.of(thumbnail));
+        assertEquals(fileName, ImageVariant.originalOf(thumbnail));
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xff0000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.support.ProductFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Not @Transactional: the order has to commit for the cart's version check to run. The test profile runs the outbox inline.
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OrderInlineOutboxTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Test
+    void aCartWithADriftedTotalIsOrderedAndCleared() {
+        Product product = productFixtures.product("Inline outbox product", 12.0, 5);
+        User user = userRepository.save(new User("inline", "inline@example.com", "password"));
+        Address address = new Address("Inline Street", "Outbox House", "Springfield", "State", "Country", "123456");
+        address.setUser(user);
+        address = addressRepository.save(address);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        // off from its lines, so checkout corrects it before the outbox stage recomputes it
+        cart.setTotalPrice(30.0);
+        cart = cartRepository.save(cart);
+        CartItem cartItem = new CartItem();
+        cartItem.setCart(cart);
+        cartItem.setProduct(product);
+        cartItem.setQuantity(2);
+        cartItem.setDiscount(0.0);
+        cartItem.setProductPrice(12.0);
+        cartItemRepository.save(cartItem);
+
+        OrderDTO order = orderService.placeOrder(user.getEmail(), address.getAddressId(), "card", "test-pg", "pg-1", "success", "ok");
+
+        assertEquals(AppConstants.ORDER_STATUS_ACCEPTED, order.getOrderStatus());
+        assertEquals(24.0, order.getTotalAmount());
+        assertEquals(0.0, cartRepository.findById(cart.getCartId()).orElseThrow().getTotalPrice());
+        assertEquals(0, cartItemRepository.findByCartIdWithProduct(cart.getCartId()).size());
+    }
+}
@@ -0,0 +1,165 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.OrderOutboxEvent;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.OrderOutboxRepository;
+import com.ecommerce.project.repositories.OrderRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.support.ProductFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(properties = {"project.order.async.enabled=true", "project.order.outbox.poll-ms=50",
+        "project.order.outbox.max-attempts=" + OrderOutboxWorkerTest.MAX_ATTEMPTS})
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OrderOutboxWorkerTest {
+
+    static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderOutboxWorker orderOutboxWorker;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @MockitoSpyBean
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void orderIsAcceptedPendingAndFinishedByTheWorker() throws Exception {
+        Product product = productFixtures.product("Outbox product", 12.0, 5);
+        User user = userRepository.save(new User("outbox", "outbox@example.com", "password"));
+        Address address = address(user);
+        Cart cart = cart(user, product);
+
+        OrderDTO order = orderService.placeOrder(user.getEmail(), address.getAddressId(), "card", "test-pg", "pg-1", "success", "ok");
+        assertEquals(AppConstants.ORDER_STATUS_PENDING, order.getOrderStatus());
+        // stock is taken when the order is accepted, not by the worker
+        assertEquals(3, productRepository.findById(product.getProductId()).orElseThrow().getQuantity());
+
+        OrderOutboxEvent event = awaitEvent(order.getOrderId(), e -> e.getProcessedAt() != null);
+
+        assertEquals(AppConstants.ORDER_STATUS_ACCEPTED, orderRepository.findById(order.getOrderId()).orElseThrow().getOrderStatus());
+        assertTrue(cartItemRepository.findByCartIdWithProduct(cart.getCartId()).isEmpty());
+        assertEquals(0.0, cartRepository.findById(cart.getCartId()).orElseThrow().getTotalPrice());
+        assertTrue(orderService.getPipelineStats().getProcessed() >= 1);
+
+        // replaying an event that already went through is a no-op
+        transactionTemplate.executeWithoutResult(status -> orderOutboxWorker.apply(event));
+        assertEquals(event.getProcessedAt(), orderOutboxRepository.findById(event.getId()).orElseThrow().getProcessedAt());
+    }
+
+    @Test
+    void anOrderTheWorkerKeepsFailingIsGivenUpAndItsStockReleased() throws Exception {
+        Product product = productFixtures.product("Failing outbox product", 12.0, 5);
+        User user = userRepository.save(new User("outboxfail", "outboxfail@example.com", "password"));
+        Address address = address(user);
+        Cart cart = cart(user, product);
+        doThrow(new IllegalStateException("cart store down"))
+                .when(cartItemRepository).deleteByCartIdAndProductIdIn(eq(cart.getCartId()), any());
+
+        OrderDTO order = orderService.placeOrder(user.getEmail(), address.getAddressId(), "card", "test-pg", "pg-2", "success", "ok");
+        assertEquals(3, productRepository.findById(product.getProductId()).orElseThrow().getQuantity());
+
+        OrderOutboxEvent event = awaitEvent(order.getOrderId(), e -> e.getFailedAt() != null);
+
+        assertEquals(MAX_ATTEMPTS, event.getAttempts());
+        assertEquals("cart store down", event.getLastError());
+        assertNull(event.getProcessedAt());
+        assertEquals(AppConstants.ORDER_STATUS_FAILED, orderRepository.findById(order.getOrderId()).orElseThrow().getOrderStatus());
+        assertEquals(5, productRepository.findById(product.getProductId()).orElseThrow().getQuantity());
+        // the lines stay in the cart and can be ordered again
+        assertEquals(1, cartItemRepository.findByCartIdWithProduct(cart.getCartId()).size());
+        assertFalse(orderOutboxWorker.hasPendingOrder(cart.getCartId()));
+        assertTrue(orderService.getPipelineStats().getFailed() >= 1);
+
+        // a failed event is never applied afterwards
+        reset(cartItemRepository);
+        transactionTemplate.executeWithoutResult(status -> orderOutboxWorker.apply(event));
+        assertEquals(AppConstants.ORDER_STATUS_FAILED, orderRepository.findById(order.getOrderId()).orElseThrow().getOrderStatus());
+        assertEquals(5, productRepository.findById(product.getProductId()).orElseThrow().getQuantity());
+    }
+
+    private OrderOutboxEvent awaitEvent(Long orderId, Predicate<OrderOutboxEvent> done) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            OrderOutboxEvent event = orderOutboxRepository.findAll().stream()
+                    .filter(e -> e.getOrderId().equals(orderId))
+                    .findFirst().orElseThrow();
+            if (done.test(event) || System.currentTimeMillis() > deadline) return event;
+            Thread.sleep(50);
+        }
+    }
+
+    private Address address(User user) {
+        Address address = new Address("Queue Street", "Outbox House", "Springfield", "State", "Country", "123456");
+        address.setUser(user);
+        return addressRepository.save(address);
+    }
+
+    private Cart cart(User user, Product product) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cart.setTotalPrice(24.0);
+        cart = cartRepository.save(cart);
+        CartItem cartItem = new CartItem();
+        cartItem.setCart(cart);
+        cartItem.setProduct(product);
+        cartItem.setQuantity(2);
+        cartItem.setDiscount(0.0);
+        cartItem.setProductPrice(12.0);
+        cartItemRepository.save(cartItem);
+        return cart;
+    }
+}
@@ -0,0 +1,148 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.support.ProductFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Not @Transactional: every buyer commits on its own thread. The context is dropped afterwards with its data.
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class OrderStockConcurrencyTest {
+
+    private static final int BUYERS = 24;
+    private static final int STOCK = 5;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        Product product = productFixtures.product("Flash sale console", 100.0, STOCK);
+        List<Buyer> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(buyerWithCart("flash" + i, Map.of(product, 1)));
+        }
+
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Buyer buyer : buyers) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        placeOrder(buyer);
+                        placed.incrementAndGet();
+                    } catch (APIException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(STOCK, placed.get());
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(0, productRepository.findById(product.getProductId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void partiallyAvailableOrderIsRejectedWithoutTakingAnyStock() {
+        Product plenty = productFixtures.product("Plenty of these", 100.0, 10);
+        Product scarce = productFixtures.product("Only one left", 100.0, 1);
+        Buyer buyer = buyerWithCart("partial", Map.of(plenty, 3, scarce, 2));
+
+        APIException exception = assertThrows(APIException.class, () -> placeOrder(buyer));
+
+        assertTrue(exception.getMessage().contains(String.valueOf(scarce.getProductId())));
+        assertEquals(10, productRepository.findById(plenty.getProductId()).orElseThrow().getQuantity());
+        assertEquals(1, productRepository.findById(scarce.getProductId()).orElseThrow().getQuantity());
+        assertEquals(2, cartItemRepository.findAll().stream()
+                .filter(item -> item.getCart().getCartId().equals(buyer.cartId())).count());
+    }
+
+    private void placeOrder(Buyer buyer) {
+        orderService.placeOrder(buyer.email(), buyer.addressId(), "card", "test-pg", "pg-1", "success", "ok");
+    }
+
+    private Buyer buyerWithCart(String name, Map<Product, Integer> lines) {
+        User user = userRepository.save(new User(name, name + "@example.com", "password"));
+
+        Address address = new Address("Market Street", "Block " + name, "Springfield", "State", "Country", "123456");
+        address.setUser(user);
+        address = addressRepository.save(address);
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        double totalPrice = 0.0;
+        cart = cartRepository.save(cart);
+        for (Map.Entry<Product, Integer> line : lines.entrySet()) {
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProduct(line.getKey());
+            cartItem.setQuantity(line.getValue());
+            cartItem.setDiscount(0.0);
+            cartItem.setProductPrice(line.getKey().getSpecialPrice());
+            cartItemRepository.save(cartItem);
+            totalPrice += line.getKey().getSpecialPrice() * line.getValue();
+        }
+        cart.setTotalPrice(totalPrice);
+        cartRepository.save(cart);
+        return new Buyer(user.getEmail(), address.getAddressId(), cart.getCartId());
+    }
+
+    private record Buyer(String email, Long addressId, Long cartId) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.support.ProductFixtures;
+import com.ecommerce.project.support.SqlStatementCounter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class OrderWriteStatementCountTest {
+
+    // the cart's user (for its lock), cart, pending-order check, address, cart lines, one batched stock reservation,
+    // payment, order (+ its update), one batched order item insert,
+    // and the inline outbox stage: ordered product ids, cart line delete, cart total, outbox insert.
+    // Plus one sequence call per 50 order items (two for the 100-line cart).
+    private static final int MAX_STATEMENTS_PER_ORDER = 17;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void checkoutStatementCountDoesNotGrowWithCartSize(int lines) {
+        User user = userRepository.save(new User("buyer" + lines, "buyer" + lines + "@example.com", "password"));
+        Address address = new Address("Market Street", "Block " + lines, "Springfield", "State", "Country", "123456");
+        address.setUser(user);
+        address = addressRepository.save(address);
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cart = cartRepository.save(cart);
+        double totalPrice = 0.0;
+        for (int i = 0; i < lines; i++) {
+            // a category per product, so nothing per line may be loaded through the product
+            Product product = productFixtures.product("Checkout product " + i, 20.0, 10);
+
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(2);
+            cartItem.setDiscount(0.0);
+            cartItem.setProductPrice(20.0);
+            cartItemRepository.save(cartItem);
+            totalPrice += 40.0;
+        }
+        cart.setTotalPrice(totalPrice);
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementCounter.reset();
+        OrderDTO order = orderService.placeOrder(user.getEmail(), address.getAddressId(), "card", "test-pg", "pg-1", "success", "ok");
+        entityManager.flush();
+
+        assertEquals(lines, order.getOrderItems().size());
+        assertTrue(SqlStatementCounter.count() <= MAX_STATEMENTS_PER_ORDER,
+                lines + "-line checkout issued " + SqlStatementCounter.count() + ": " + SqlStatementCounter.statements());
+        // the stock goes through JdbcTemplate, one batch for every line
+        assertEquals(1, SqlStatementCounter.statements().stream()
+                .filter(sql -> sql.toLowerCase().startsWith("update products set quantity"))
+                .count());
+        assertEquals(0, cartItemRepository.findByCartIdWithProduct(cart.getCartId()).size());
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.service.ProductCatalogCache.PageKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductCatalogCacheTest {
+
+    private final ProductCatalogCache cache = new ProductCatalogCache(100, 60_000);
+
+    @Test
+    void hitsAndMissesShowInTheStats() {
+        PageKey key = PageKey.all(0, 10, "price", "ASC");
+        assertNull(cache.get(key));
+        cache.put(key, page(1L), cache.generation());
+
+        // the sort order is normalized, both spellings are the same page
+        assertNotNull(cache.get(PageKey.all(0, 10, "price", "asc")));
+        assertNotNull(cache.get(key));
+
+        CacheStatsDTO stats = cache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+        assertEquals(2.0 / 3, stats.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void anUpdateDropsOnlyTheListingsItCanChange() {
+        PageKey byId = PageKey.all(0, 10, "productId", "asc");
+        PageKey byPrice = PageKey.all(0, 10, "price", "asc");
+        PageKey holding = PageKey.all(1, 10, "productId", "asc");
+        PageKey sameCategory = PageKey.category(5L, 0, 10, "price", "asc");
+        PageKey otherCategory = PageKey.category(6L, 0, 10, "price", "asc");
+        PageKey matching = PageKey.keyword("lamp", 0, 10, "price", "asc");
+        PageKey notMatching = PageKey.keyword("chair", 0, 10, "price", "asc");
+        long generation = cache.generation();
+        for (PageKey key : List.of(byId, byPrice, sameCategory, otherCategory, matching, notMatching)) {
+            cache.put(key, page(1L), generation);
+        }
+        cache.put(holding, page(7L), generation);
+
+        cache.onProductUpdated(7L, 5L, "lamp"::equals);
+
+        assertNotNull(cache.get(byId));
+        assertNull(cache.get(byPrice));
+        assertNull(cache.get(holding));
+        assertNull(cache.get(sameCategory));
+        assertNotNull(cache.get(otherCategory));
+        assertNull(cache.get(matching));
+        assertNotNull(cache.get(notMatching));
+    }
+
+    @Test
+    void aStockChangeDropsThePagesShowingTheProductAndTheQuantityListings() {
+        PageKey showing = PageKey.category(5L, 0, 10, "price", "asc");
+        PageKey notShowing = PageKey.category(5L, 1, 10, "price", "asc");
+        PageKey byQuantity = PageKey.all(1, 10, "quantity", "desc");
+        long generation = cache.generation();
+        cache.put(showing, page(1L, 2L), generation);
+        cache.put(notShowing, page(3L), generation);
+        cache.put(byQuantity, page(4L), generation);
+
+        cache.onProductsChanged(List.of(2L));
+
+        assertNull(cache.get(showing));
+        assertNotNull(cache.get(notShowing));
+        assertNull(cache.get(byQuantity));
+    }
+
+    @Test
+    void aPageReadWhileAnInvalidationRanIsNotCached() {
+        PageKey key = PageKey.category(5L, 0, 10, "price", "asc");
+        long readAt = cache.generation();
+        // the product changes after the page was read from the database, before it is cached
+        cache.onProductChanged(1L);
+        cache.put(key, page(1L), readAt);
+        assertNull(cache.get(key));
+
+        cache.put(key, page(1L), cache.generation());
+        assertNotNull(cache.get(key));
+    }
+
+    private static ProductResponse page(Long... productIds) {
+        ProductResponse response = new ProductResponse();
+        response.setContent(Arrays.stream(productIds)
+                .map(id -> new ProductDTO(id, "Product " + id, null, "description", 1, 10.0, 0.0, 10.0))
+                .toList());
+        return response;
+    }
+}
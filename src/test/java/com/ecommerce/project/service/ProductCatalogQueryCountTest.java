@@ -0,0 +1,107 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ProductCatalogQueryCountTest {
+
+    // one SELECT for the page plus one COUNT for the totals
+    private static final int MAX_STATEMENTS_PER_PAGE = 2;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    private Category category;
+
+    @BeforeEach
+    void seedCatalogWithBusyCarts() {
+        category = new Category();
+        category.setCategoryName("Electronics");
+        category = categoryRepository.save(category);
+
+        for (int i = 0; i < 50; i++) {
+            Product product = new Product();
+            product.setProductName("Product " + i);
+            product.setDescription("Description of product " + i);
+            product.setQuantity(100);
+            product.setPrice(10.0 + i);
+            product.setSpecialPrice(10.0 + i);
+            product.setImage("default.png");
+            product.setCategory(category);
+            product = productRepository.save(product);
+
+            // every product sits in a few carts, which used to be loaded along with it
+            for (int c = 0; c < 3; c++) {
+                Cart cart = new Cart();
+                cart = cartRepository.save(cart);
+                CartItem cartItem = new CartItem();
+                cartItem.setCart(cart);
+                cartItem.setProduct(product);
+                cartItem.setQuantity(1);
+                cartItem.setDiscount(0.0);
+                cartItem.setProductPrice(product.getSpecialPrice());
+                cartItemRepository.save(cartItem);
+            }
+        }
+        productRepository.flush();
+        cartItemRepository.flush();
+        productCatalogCache.invalidateAll();
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void allProductsPageIssuesConstantStatementsAndNeverReadsCartItems() {
+        ProductResponse response = productService.getAllProducts(0, 50, "productId", "asc");
+
+        assertEquals(50, response.getContent().size());
+        assertTrue(SqlStatementCounter.count() <= MAX_STATEMENTS_PER_PAGE,
+                "Catalog page issued " + SqlStatementCounter.statements());
+        assertEquals(0, SqlStatementCounter.countTouching("cart_items"));
+    }
+
+    @Test
+    void categoryPageIssuesConstantStatementsAndNeverReadsCartItems() {
+        ProductResponse response = productService.getProductsByCategory(category.getCategoryId(), 0, 50, "productId", "asc");
+
+        assertEquals(50, response.getContent().size());
+        // plus the category existence check
+        assertTrue(SqlStatementCounter.count() <= MAX_STATEMENTS_PER_PAGE + 1,
+                "Category page issued " + SqlStatementCounter.statements());
+        assertEquals(0, SqlStatementCounter.countTouching("cart_items"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.support.ProductFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Not @Transactional: the cache is only invalidated once the order commits
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ProductCatalogStockOrderTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Test
+    void anOrderReSortsTheListingsSortedByQuantity() {
+        Product plenty = productFixtures.product("Plenty of lamps", 30.0, 10);
+        Product fewer = productFixtures.product("Fewer lamps", 30.0, 8);
+        // same category and price, so only the stock orders them
+        fewer.setCategory(plenty.getCategory());
+        fewer = productRepository.save(fewer);
+        Long categoryId = plenty.getCategory().getCategoryId();
+
+        // the first page only shows the other product, but the order moves this one onto it
+        assertEquals(List.of(fewer.getProductId()), productIds(categoryId));
+
+        User user = userRepository.save(new User("lampbuyer", "lampbuyer@example.com", "password"));
+        Address address = new Address("Lamp Street", "Block 1", "Springfield", "State", "Country", "123456");
+        address.setUser(user);
+        address = addressRepository.save(address);
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cart = cartRepository.save(cart);
+        CartItem cartItem = new CartItem();
+        cartItem.setCart(cart);
+        cartItem.setProduct(plenty);
+        cartItem.setQuantity(5);
+        cartItem.setDiscount(0.0);
+        cartItem.setProductPrice(plenty.getSpecialPrice());
+        cartItemRepository.save(cartItem);
+        cart.setTotalPrice(plenty.getSpecialPrice() * 5);
+        cartRepository.save(cart);
+
+        orderService.placeOrder(user.getEmail(), address.getAddressId(), "card", "test-pg", "pg-1", "success", "ok");
+
+        assertEquals(List.of(plenty.getProductId()), productIds(categoryId));
+    }
+
+    private List<Long> productIds(Long categoryId) {
+        return productService.getProductsByCategory(categoryId, 0, 1, "quantity", "asc")
+                .getContent().stream().map(ProductDTO::getProductId).toList();
+    }
+}
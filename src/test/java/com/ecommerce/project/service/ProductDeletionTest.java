@@ -0,0 +1,138 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.OrderRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.support.ProductFixtures;
+import com.ecommerce.project.support.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "project.product.soft-delete=true")
+@ActiveProfiles("test")
+class ProductDeletionTest {
+
+    // product lookup, cart locks, cart totals, cart lines, product row
+    private static final int STATEMENTS_PER_DELETE = 5;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartPricing cartPricing;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFixtures productFixtures;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20})
+    void deletionStatementCountDoesNotGrowWithCarts(int carts) {
+        Product deleted = productFixtures.product("Deleted product " + carts, 12.5, 100);
+        Product kept = productFixtures.product("Kept product " + carts, 3.0, 100);
+        List<Long> cartIds = new ArrayList<>();
+        for (int i = 0; i < carts; i++) {
+            User user = userRepository.save(new User("holder" + carts + "-" + i, "holder" + carts + "-" + i + "@example.com", "password"));
+            cartIds.add(cartWith(user, deleted, 2, kept, 1));
+        }
+
+        SqlStatementCounter.reset();
+        productService.deleteProduct(deleted.getProductId());
+
+        assertEquals(STATEMENTS_PER_DELETE, SqlStatementCounter.count(), SqlStatementCounter.statements().toString());
+        for (Long cartId : cartIds) {
+            assertEquals(300, cartRepository.findById(cartId).orElseThrow().getTotalPriceMinor());
+            List<CartItem> lines = cartItemRepository.findByCartIdWithProduct(cartId);
+            assertEquals(1, lines.size());
+            assertEquals(kept.getProductId(), lines.get(0).getProduct().getProductId());
+        }
+        assertTrue(productRepository.findActiveById(deleted.getProductId()).isEmpty());
+        assertTrue(productRepository.findById(deleted.getProductId()).orElseThrow().isDeleted());
+    }
+
+    @Test
+    void orderedProductStaysReferencedAfterSoftDelete() {
+        Product product = productFixtures.product("Ordered product", 8.0, 100);
+        User user = userRepository.save(new User("orderer", "orderer@example.com", "password"));
+        Address address = new Address("Archive Street", "History House", "Springfield", "State", "Country", "123456");
+        address.setUser(user);
+        address = addressRepository.save(address);
+        cartWith(user, product, 1, null, 0);
+        OrderDTO order = orderService.placeOrder(user.getEmail(), address.getAddressId(), "card", "test-pg", "pg-1", "success", "ok");
+
+        productService.deleteProduct(product.getProductId());
+
+        String orderedName = transactionTemplate.execute(status -> {
+            List<OrderItem> items = orderRepository.findById(order.getOrderId()).orElseThrow().getOrderItems();
+            return items.get(0).getProduct().getProductName();
+        });
+        assertEquals("Ordered product", orderedName);
+        // the name is free again for a new product
+        assertNull(productRepository.findByProductNameAndDeletedFalse("Ordered product"));
+    }
+
+    private Long cartWith(User user, Product first, int firstQuantity, Product second, int secondQuantity) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        List<CartItem> lines = new ArrayList<>();
+        lines.add(line(cart, first, firstQuantity));
+        if (second != null) lines.add(line(cart, second, secondQuantity));
+        cart = cartRepository.save(cart);
+        cartItemRepository.saveAll(lines);
+        return cart.getCartId();
+    }
+
+    private CartItem line(Cart cart, Product product, int quantity) {
+        CartItem line = new CartItem();
+        line.setCart(cart);
+        line.setProduct(product);
+        line.setDiscount(product.getDiscount());
+        cartPricing.setLine(cart, line, product.getSpecialPrice(), quantity);
+        return line;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.CsvRecordReader;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ProductExportServiceTest {
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Category garden;
+    private Category kitchen;
+
+    @BeforeEach
+    void setUp() {
+        garden = saveCategory("Export garden");
+        kitchen = saveCategory("Export kitchen");
+        saveProduct("Export hose", "Hose, 20m \"heavy duty\"", garden);
+        saveProduct("Export rake", "Steel rake\nwith a wooden handle", garden);
+        saveProduct("Export whisk", "Balloon whisk", kitchen);
+    }
+
+    @Test
+    void ndjsonExportWritesOneObjectPerLineForTheCategory() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = productExportService.exportProducts(garden.getCategoryId(), "ndjson", out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        JsonNode hose = objectMapper.readTree(lines[0]);
+        assertEquals("Export hose", hose.get("productName").asText());
+        assertEquals(garden.getCategoryId(), hose.get("categoryId").asLong());
+        assertEquals("Steel rake\nwith a wooden handle", objectMapper.readTree(lines[1]).get("description").asText());
+    }
+
+    @Test
+    void csvExportRoundTripsThroughTheImportReader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = productExportService.exportProducts(null, "csv", out);
+
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(out.toString(StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        assertEquals("productName", header.get(1));
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) records.add(record);
+
+        assertEquals(written, records.size());
+        assertTrue(records.stream().anyMatch(fields -> fields.get(2).equals("Hose, 20m \"heavy duty\"")));
+        assertTrue(records.stream().anyMatch(fields -> fields.get(2).equals("Steel rake\nwith a wooden handle")));
+        assertNull(reader.next());
+    }
+
+    private Category saveCategory(String name) {
+        Category category = new Category();
+        category.setCategoryName(name);
+        return categoryRepository.save(category);
+    }
+
+    private void saveProduct(String name, String description, Category category) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription(description);
+        product.setQuantity(3);
+        product.setPrice(15.0);
+        product.setSpecialPrice(15.0);
+        product.setCategory(category);
+        productRepository.save(product);
+    }
+}
@@ -0,0 +1,114 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductImportErrorDTO;
+import com.ecommerce.project.payload.ProductImportJobDTO;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Not @Transactional: the import commits on its own worker thread. A batch size of 2 makes rows span several batches.
+@SpringBootTest(properties = "project.product-import.batch-size=2")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void csvImportInsertsValidRowsAndReportsTheRest() throws Exception {
+        Long categoryId = saveCategory("Imported gadgets");
+        String csv = "productName,description,categoryId,price,discount,quantity\n"
+                + "Import lamp,\"Desk lamp, warm light\",%1$d,40,25,3\n"
+                + "Import kettle,Electric kettle,%1$d,30,0,5\n"
+                + "ab,Too short a name,%1$d,10,0,1\n"
+                + "Import mug,Mug for the lost category,999999,5,0,1\n"
+                + "Import lamp,Same name again in a later batch,%1$d,40,0,1\n"
+                + "Import clock,\"Wall clock\nwith a quoted line break\",%1$d,abc,0,1\n"
+                + "Import fan,Quiet ceiling fan,%1$d,60,10,2\n";
+
+        ProductImportJobDTO job = awaitJob(productImportService.startImport(
+                file("products.csv", csv.formatted(categoryId)), null));
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(7, job.getRowsRead());
+        assertEquals(3, job.getImported());
+        assertEquals(4, job.getFailed());
+        Map<Long, String> errors = job.getErrors().stream()
+                .collect(Collectors.toMap(ProductImportErrorDTO::getRow, ProductImportErrorDTO::getMessage));
+        assertTrue(errors.get(3L).contains("productName"), errors.get(3L));
+        assertTrue(errors.get(4L).contains("Category not found"), errors.get(4L));
+        assertTrue(errors.get(5L).contains("already exists"), errors.get(5L));
+        assertTrue(errors.get(6L).contains("must be numbers"), errors.get(6L));
+
+        Product lamp = productRepository.findByProductNameAndDeletedFalse("Import lamp");
+        assertEquals("Desk lamp, warm light", lamp.getDescription());
+        assertEquals(30.0, lamp.getSpecialPrice());
+        assertEquals("default.png", lamp.getImage());
+        assertEquals(List.of(lamp.getProductId()), productSearchIndex.search("lamp", "asc"));
+    }
+
+    @Test
+    void ndjsonImportSkipsMalformedLines() throws Exception {
+        Long categoryId = saveCategory("Imported furniture");
+        String ndjson = "{\"productName\":\"Import chair\",\"description\":\"Oak dining chair\",\"categoryId\":%1$d,\"price\":80,\"quantity\":4}\n"
+                + "\n"
+                + "{not json\n"
+                + "{\"productName\":\"Import table\",\"description\":\"Oak dining table\",\"categoryId\":%1$d,\"price\":300}\n";
+
+        ProductImportJobDTO job = awaitJob(productImportService.startImport(
+                file("products.ndjson", ndjson.formatted(categoryId)), null));
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(3, job.getRowsRead());
+        assertEquals(2, job.getImported());
+        assertEquals(1, job.getFailed());
+        assertEquals(2L, job.getErrors().get(0).getRow());
+        assertNotNull(productRepository.findByProductNameAndDeletedFalse("Import table"));
+    }
+
+    private ProductImportJobDTO awaitJob(ProductImportJobDTO started) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        ProductImportJobDTO job = started;
+        while ("RUNNING".equals(job.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = productImportService.getImportJob(started.getJobId());
+        }
+        return job;
+    }
+
+    private Long saveCategory(String name) {
+        Category category = new Category();
+        category.setCategoryName(name);
+        return categoryRepository.save(category).getCategoryId();
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("file", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
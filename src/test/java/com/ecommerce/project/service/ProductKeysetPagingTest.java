@@ -0,0 +1,172 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CategoryResponse;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.payload.ProductResponse;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ProductKeysetPagingTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    private Category category;
+
+    private Category other;
+
+    @BeforeEach
+    void seedProducts() {
+        category = new Category();
+        category.setCategoryName("Stationery");
+        category = categoryRepository.save(category);
+
+        other = new Category();
+        other.setCategoryName("Office chairs");
+        other = categoryRepository.save(other);
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product();
+            product.setProductName("Chair " + i);
+            product.setDescription("Swivel chair " + i);
+            product.setQuantity(2);
+            product.setPrice(90.0);
+            product.setSpecialPrice(90.0);
+            product.setCategory(other);
+            productRepository.save(product);
+        }
+
+        for (int i = 0; i < 25; i++) {
+            Product product = new Product();
+            product.setProductName("Notebook " + i);
+            product.setDescription("Ruled notebook " + i);
+            product.setQuantity(10);
+            // duplicate prices so the id tie-breaker is exercised
+            product.setPrice(5.0 + (i % 5));
+            product.setSpecialPrice(5.0 + (i % 5));
+            product.setCategory(category);
+            productRepository.save(product);
+        }
+        productRepository.flush();
+    }
+
+    @Test
+    void walksTheWholeCatalogWithoutCountQueries() {
+        SqlStatementCounter.reset();
+        List<ProductDTO> seen = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            ProductResponse response = productService.getProductsAfter(after, 10, "price", "desc");
+            assertNull(response.getTotalElements());
+            seen.addAll(response.getContent());
+            after = response.getNextCursor();
+            pages++;
+        } while (after != null);
+
+        assertEquals(3, pages);
+        assertEquals(28, seen.size());
+        assertEquals(28, new HashSet<>(seen.stream().map(ProductDTO::getProductId).toList()).size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).getPrice() >= seen.get(i).getPrice());
+        }
+        assertTrue(SqlStatementCounter.statements().stream().noneMatch(sql -> sql.toLowerCase().contains("count(")));
+    }
+
+    @Test
+    void walksOneCategoryThroughAProjection() {
+        SqlStatementCounter.reset();
+        List<ProductDTO> seen = new ArrayList<>();
+        String after = null;
+        do {
+            ProductResponse response = productService.getProductsByCategoryAfter(category.getCategoryId(), after, 10, "productName", "asc");
+            seen.addAll(response.getContent());
+            after = response.getNextCursor();
+        } while (after != null);
+
+        assertEquals(25, seen.size());
+        assertTrue(seen.stream().allMatch(product -> product.getProductName().startsWith("Notebook")));
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).getProductName().compareTo(seen.get(i).getProductName()) < 0);
+        }
+        // only the DTO's columns are read, no Product entity with its seller and category is loaded
+        List<String> productReads = SqlStatementCounter.statements().stream()
+                .map(String::toLowerCase)
+                .filter(sql -> sql.contains("from products"))
+                .toList();
+        assertEquals(3, productReads.size());
+        assertTrue(productReads.stream().noneMatch(sql -> sql.contains("seller_id") || sql.contains("category_id,")));
+    }
+
+    @Test
+    void scrollsPastProductsWithoutStock() {
+        Product unstocked = new Product();
+        unstocked.setProductName("Chair without stock");
+        unstocked.setDescription("Swivel chair, stock unknown");
+        unstocked.setPrice(95.0);
+        unstocked.setSpecialPrice(95.0);
+        unstocked.setCategory(other);
+        productRepository.saveAndFlush(unstocked);
+
+        List<Long> seen = new ArrayList<>();
+        String after = null;
+        do {
+            ProductResponse response = productService.getProductsByCategoryAfter(other.getCategoryId(), after, 1, "price", "asc");
+            response.getContent().forEach(product -> seen.add(product.getProductId()));
+            after = response.getNextCursor();
+        } while (after != null);
+        assertEquals(4, seen.size());
+        assertEquals(unstocked.getProductId(), seen.get(3));
+
+        // a null quantity could not be resumed from, so quantity is no keyset
+        assertThrows(APIException.class,
+                () -> productService.getProductsByCategoryAfter(other.getCategoryId(), null, 1, "quantity", "asc"));
+    }
+
+    @Test
+    void walksTheCategoriesByName() {
+        List<String> names = new ArrayList<>();
+        String after = null;
+        do {
+            CategoryResponse response = categoryService.getCategoriesAfter(after, 1, "categoryName", "desc");
+            response.getContent().forEach(category -> names.add(category.getCategoryName()));
+            after = response.getNextCursor();
+        } while (after != null);
+
+        assertEquals(categoryRepository.count(), names.size());
+        assertTrue(names.containsAll(List.of("Stationery", "Office chairs")));
+        for (int i = 1; i < names.size(); i++) {
+            assertTrue(names.get(i - 1).compareTo(names.get(i)) > 0);
+        }
+    }
+}
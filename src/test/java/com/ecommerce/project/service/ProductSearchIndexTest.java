@@ -0,0 +1,44 @@
+package com.ecommerce.project.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.index(1L, "Wireless Mouse", "Ergonomic mouse with USB receiver");
+        index.index(2L, "Mouse Pad", "Large desk pad");
+        index.index(3L, "USB Keyboard", "Mechanical keyboard, works with any wireless dongle");
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        assertEquals(List.of(1L, 3L), index.search("wireless", "asc"));
+    }
+
+    @Test
+    void matchesTokenPrefixesAcrossNameAndDescription() {
+        assertEquals(List.of(3L), index.search("keyb mech", "asc"));
+        assertTrue(ProductSearchIndex.matches("ergo mou", "Wireless Mouse", "Ergonomic mouse"));
+        assertFalse(ProductSearchIndex.matches("trackpad", "Wireless Mouse", "Ergonomic mouse"));
+    }
+
+    @Test
+    void reindexingAndRemovalKeepPostingsCurrent() {
+        index.index(2L, "Gaming Mat", "Large desk mat");
+        assertEquals(List.of(1L), index.search("mouse", "asc"));
+
+        index.remove(1L);
+        assertTrue(index.search("mouse", "asc").isEmpty());
+    }
+}
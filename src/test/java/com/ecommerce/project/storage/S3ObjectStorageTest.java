@@ -0,0 +1,270 @@
+package com.ecommerce.project.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3ObjectStorageTest {
+
+    private static final int PART_SIZE = S3ObjectStorage.MIN_PART_SIZE;
+
+    @TempDir
+    Path folder;
+
+    private InMemoryBucket bucket;
+
+    @BeforeEach
+    void setUp() {
+        bucket = new InMemoryBucket();
+    }
+
+    @Test
+    void smallFilesAreStoredInOnePut() throws Exception {
+        S3ObjectStorage storage = storage(1 << 20);
+        byte[] bytes = bytes(1000);
+
+        storage.put("a.png", file(bytes), "image/png");
+
+        assertEquals(1, bucket.puts);
+        assertEquals(0, bucket.parts.size());
+        assertArrayEquals(bytes, bucket.objects.get("a.png"));
+        assertEquals(1000, storage.stat("a.png").length());
+    }
+
+    @Test
+    void largeFilesAreUploadedInParts() throws Exception {
+        S3ObjectStorage storage = storage(1 << 20);
+        byte[] bytes = bytes(2 * PART_SIZE + 10);
+
+        storage.put("big.png", file(bytes), "image/png");
+
+        assertEquals(0, bucket.puts);
+        assertEquals(List.of(PART_SIZE, PART_SIZE, 10), bucket.parts);
+        assertArrayEquals(bytes, bucket.objects.get("big.png"));
+    }
+
+    @Test
+    void objectsAreReadFromTheBucketOnceThenFromTheCache() throws Exception {
+        byte[] bytes = bytes(500);
+        bucket.objects.put("b.png", bytes);
+        S3ObjectStorage storage = storage(1 << 20);
+
+        Path first = storage.localCopy("b.png");
+        Path second = storage.localCopy("b.png");
+
+        assertEquals(first, second);
+        assertArrayEquals(bytes, Files.readAllBytes(first));
+        assertEquals(1, bucket.gets);
+        assertEquals(InMemoryBucket.LAST_MODIFIED.toEpochMilli(), storage.stat("b.png").lastModified());
+        assertEquals(0, bucket.heads);
+        assertNull(storage.stat("missing.png"));
+        assertNull(storage.localCopy("missing.png"));
+    }
+
+    @Test
+    void missingKeysAreRememberedUntilTheyAreStored() throws Exception {
+        S3ObjectStorage storage = storage(1 << 20);
+
+        assertNull(storage.localCopy("later.png"));
+        assertNull(storage.localCopy("later.png"));
+        assertNull(storage.stat("later.png"));
+        assertEquals(1, bucket.gets);
+        assertEquals(0, bucket.heads);
+
+        storage.put("later.png", file(bytes(10)), "image/png");
+        assertEquals(10, storage.stat("later.png").length());
+        assertNotNull(storage.localCopy("later.png"));
+    }
+
+    @Test
+    void aMissIsAskedForAgainOnceItsTtlIsOver() throws Exception {
+        S3ObjectStorage storage = new S3ObjectStorage(bucket, "images", PART_SIZE,
+                new LocalFileCache(folder.resolve("cache"), 1 << 20), 0);
+
+        assertNull(storage.localCopy("elsewhere.png"));
+        // stored by another node
+        bucket.objects.put("elsewhere.png", bytes(10));
+
+        assertNotNull(storage.localCopy("elsewhere.png"));
+        assertEquals(2, bucket.gets);
+    }
+
+    @Test
+    void cacheEvictsLeastRecentlyUsedBeyondItsSize() throws Exception {
+        LocalFileCache cache = new LocalFileCache(folder.resolve("cache"), 250);
+        cache.put("a", file(bytes(100)));
+        cache.put("b", file(bytes(100)));
+        assertNotNull(cache.get("a"));
+
+        cache.put("c", file(bytes(100)));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(200, cache.getTotalBytes());
+        assertFalse(Files.exists(folder.resolve("cache").resolve("b")));
+
+        // entries survive a restart
+        LocalFileCache reopened = new LocalFileCache(folder.resolve("cache"), 250);
+        assertTrue(reopened.get("a") != null && reopened.get("c") != null);
+    }
+
+    private S3ObjectStorage storage(long cacheBytes) throws IOException {
+        return new S3ObjectStorage(bucket, "images", PART_SIZE, new LocalFileCache(folder.resolve("cache"), cacheBytes), 60_000);
+    }
+
+    private Path file(byte[] bytes) throws IOException {
+        return Files.write(Files.createTempFile(folder, "file-", ".bin"), bytes);
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = (byte) (i * 31);
+        return bytes;
+    }
+
+    // Just enough of S3 for S3ObjectStorage, standing in for a real bucket
+    private static class InMemoryBucket implements S3Client {
+        static final Instant LAST_MODIFIED = Instant.parse("2024-01-01T00:00:00Z");
+
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final Map<String, List<byte[]>> uploads = new ConcurrentHashMap<>();
+        final List<Integer> parts = new ArrayList<>();
+        int puts;
+        int gets;
+        int heads;
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            puts++;
+            objects.put(request.key(), read(body));
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            String uploadId = "upload-" + uploads.size();
+            uploads.put(uploadId, new ArrayList<>());
+            return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            byte[] part = read(body);
+            parts.add(part.length);
+            uploads.get(request.uploadId()).add(part);
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            ByteArrayOutputStream object = new ByteArrayOutputStream();
+            List<byte[]> uploaded = uploads.remove(request.uploadId());
+            for (CompletedPart part : request.multipartUpload().parts()) {
+                object.writeBytes(uploaded.get(part.partNumber() - 1));
+            }
+            objects.put(request.key(), object.toByteArray());
+            return CompleteMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            uploads.remove(request.uploadId());
+            return AbortMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public HeadObjectResponse headObject(HeadObjectRequest request) {
+            heads++;
+            byte[] object = find(request.key());
+            return HeadObjectResponse.builder().contentLength((long) object.length).lastModified(LAST_MODIFIED).build();
+        }
+
+        @Override
+        public <ReturnT> ReturnT getObject(GetObjectRequest request,
+                                           ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+            gets++;
+            byte[] object = find(request.key());
+            GetObjectResponse response = GetObjectResponse.builder()
+                    .contentLength((long) object.length).lastModified(LAST_MODIFIED).build();
+            try {
+                return transformer.transform(response, AbortableInputStream.create(new ByteArrayInputStream(object)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private byte[] find(String key) {
+            byte[] object = objects.get(key);
+            if (object == null) {
+                throw NoSuchKeyException.builder().statusCode(404)
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode("NoSuchKey").build()).build();
+            }
+            return object;
+        }
+
+        private static byte[] read(RequestBody body) {
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.project.support;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Picked up by the application's component scan in every @SpringBootTest
+@Component
+public class ProductFixtures {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // A product without discount, in a category of its own
+    public Product product(String name, double specialPrice, int stock) {
+        Category category = new Category();
+        category.setCategoryName(name + " category");
+        category = categoryRepository.save(category);
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription(name + " description");
+        product.setQuantity(stock);
+        product.setPrice(specialPrice);
+        product.setDiscount(0.0);
+        product.setSpecialPrice(specialPrice);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+}
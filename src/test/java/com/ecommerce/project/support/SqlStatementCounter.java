@@ -0,0 +1,110 @@
+package com.ecommerce.project.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/*
+  Wraps the application's DataSource, so every statement is counted whoever sends it: Hibernate, Spring Data and
+  JdbcTemplate alike. A prepared statement counts once however many rows it is batched for, an unprepared one
+  once per SQL string executed or batched.
+*/
+@Component
+@Profile("test")
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    private static final Set<String> PREPARING = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> EXECUTING = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "addBatch");
+
+    private static final List<String> statements = new ArrayList<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    public static void reset() {
+        synchronized (statements) {
+            statements.clear();
+        }
+    }
+
+    public static List<String> statements() {
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+
+    public static long count() {
+        return statements().size();
+    }
+
+    public static long countTouching(String table) {
+        return statements().stream()
+                .filter(sql -> sql.toLowerCase().matches("(?s).*\\b" + table + "\\b.*"))
+                .count();
+    }
+
+    private static void record(String sql) {
+        synchronized (statements) {
+            statements.add(sql);
+        }
+    }
+
+    private static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (PREPARING.contains(method.getName()) && args != null && args[0] instanceof String sql) record(sql);
+                    Object result = invoke(connection, method, args);
+                    return method.getName().equals("createStatement") ? counting((Statement) result) : result;
+                });
+    }
+
+    private static Statement counting(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    if (EXECUTING.contains(method.getName()) && args != null && args[0] instanceof String sql) record(sql);
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}